@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Creates the in-memory HSQLDB databases the benchmarks run against: the regular petclinic schema filled with a
+ * configurable amount of synthetic owners, pets and visits, and optionally vets.
+ * <p>
+ * Ids are assigned explicitly and consecutively starting at 1, so benchmarks can address rows without querying.
+ */
+public final class BenchmarkDatabase {
+
+    public static final int NR_OF_PET_TYPES = 6;
+
+    public static final int NR_OF_SPECIALTIES = 3;
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * @param owners       number of owners to create
+     * @param petsPerOwner number of pets created for each owner
+     * @param visitsPerPet number of visits created for each pet
+     * @return a freshly created database, to be shut down by the caller
+     */
+    public static EmbeddedDatabase create(int owners, int petsPerOwner, int visitsPerPet) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.HSQL)
+            .addScript("db/hsqldb/initDB.sql")
+            .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+        List<Object[]> types = new ArrayList<>();
+        for (int typeId = 1; typeId <= NR_OF_PET_TYPES; typeId++) {
+            types.add(new Object[]{typeId, "type" + typeId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO types (id, name) VALUES (?, ?)", types);
+
+        List<Object[]> ownerRows = new ArrayList<>();
+        List<Object[]> petRows = new ArrayList<>();
+        List<Object[]> visitRows = new ArrayList<>();
+        Date birthDate = Date.valueOf(LocalDate.of(2015, 3, 14));
+        Date visitDate = Date.valueOf(LocalDate.of(2020, 1, 2));
+        int petId = 0;
+        int visitId = 0;
+        for (int ownerId = 1; ownerId <= owners; ownerId++) {
+            ownerRows.add(new Object[]{ownerId, "First" + ownerId, "Last" + ownerId, ownerId + " Main St.", "Madison", "6085551023"});
+            for (int p = 0; p < petsPerOwner; p++) {
+                petId++;
+                petRows.add(new Object[]{petId, "Pet" + petId, birthDate, petId % NR_OF_PET_TYPES + 1, ownerId});
+                for (int v = 0; v < visitsPerPet; v++) {
+                    visitId++;
+                    visitRows.add(new Object[]{visitId, petId, visitDate, "visit " + visitId});
+                }
+            }
+        }
+        batchInsert(jdbcTemplate, "INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)", ownerRows);
+        batchInsert(jdbcTemplate, "INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", petRows);
+        batchInsert(jdbcTemplate, "INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", visitRows);
+        return database;
+    }
+
+    /**
+     * Add vets and specialties to a database created by {@link #create}.
+     *
+     * @param vets              number of vets to create
+     * @param specialtiesPerVet number of specialties given to each vet, at most {@link #NR_OF_SPECIALTIES}
+     */
+    public static void addVets(EmbeddedDatabase database, int vets, int specialtiesPerVet) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+        List<Object[]> specialties = new ArrayList<>();
+        for (int specialtyId = 1; specialtyId <= NR_OF_SPECIALTIES; specialtyId++) {
+            specialties.add(new Object[]{specialtyId, "specialty" + specialtyId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO specialties (id, name) VALUES (?, ?)", specialties);
+
+        List<Object[]> vetRows = new ArrayList<>();
+        List<Object[]> vetSpecialtyRows = new ArrayList<>();
+        for (int vetId = 1; vetId <= vets; vetId++) {
+            vetRows.add(new Object[]{vetId, "First" + vetId, "Last" + vetId});
+            for (int s = 0; s < Math.min(specialtiesPerVet, NR_OF_SPECIALTIES); s++) {
+                vetSpecialtyRows.add(new Object[]{vetId, (vetId + s) % NR_OF_SPECIALTIES + 1});
+            }
+        }
+        batchInsert(jdbcTemplate, "INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)", vetRows);
+        batchInsert(jdbcTemplate, "INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)", vetSpecialtyRows);
+    }
+
+    private static void batchInsert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size())));
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.benchmark.BenchmarkDatabase;
+
+/**
+ * Measures {@link JdbcPetVisitExtractor} and {@link JdbcPetRowMapper} over large synthetic result sets read from
+ * an in-memory HSQLDB database, so the figures include result set traversal but no network round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcMappingBenchmark {
+
+    private static final String PETS_SQL =
+        "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets";
+
+    private static final String PETS_WITH_VISITS_SQL =
+        "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, " +
+            "description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id " +
+            "ORDER BY pets.id";
+
+    private static final int PETS_PER_OWNER = 2;
+
+    private static final int VISITS_PER_PET = 3;
+
+    @Param({"1000", "10000"})
+    public int nrOfOwners;
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        this.database = BenchmarkDatabase.create(this.nrOfOwners, PETS_PER_OWNER, VISITS_PER_PET);
+        this.jdbcTemplate = new JdbcTemplate(this.database);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownDatabase() {
+        this.database.shutdown();
+    }
+
+    @Benchmark
+    public List<JdbcPet> petRowMapper() {
+        return this.jdbcTemplate.query(PETS_SQL, new JdbcPetRowMapper());
+    }
+
+    @Benchmark
+    public List<JdbcPet> petVisitExtractor() {
+        return this.jdbcTemplate.query(PETS_WITH_VISITS_SQL, new JdbcPetVisitExtractor());
+    }
+
+}
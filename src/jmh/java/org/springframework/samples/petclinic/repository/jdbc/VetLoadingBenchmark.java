@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.benchmark.BenchmarkDatabase;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.util.EntityUtils;
+
+/**
+ * Compares loading all vets with their specialties through {@link JdbcVetRepositoryImpl#findAll()}, a single join
+ * read by {@link JdbcVetSpecialtyExtractor}, with the former approach of one <code>vet_specialties</code> query per
+ * vet: a single round trip against n + 2 for n vets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VetLoadingBenchmark {
+
+    private static final int SPECIALTIES_PER_VET = 2;
+
+    @Param({"1000", "10000"})
+    public int nrOfVets;
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcVetRepositoryImpl vetRepository;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        this.database = BenchmarkDatabase.create(0, 0, 0);
+        BenchmarkDatabase.addVets(this.database, this.nrOfVets, SPECIALTIES_PER_VET);
+        this.jdbcTemplate = new JdbcTemplate(this.database);
+        this.vetRepository = new JdbcVetRepositoryImpl(this.database, this.jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownDatabase() {
+        this.database.shutdown();
+    }
+
+    @Benchmark
+    public Collection<Vet> joinExtractor() {
+        return this.vetRepository.findAll();
+    }
+
+    @Benchmark
+    public Collection<Vet> queryPerVet() {
+        List<Vet> vets = this.jdbcTemplate.query(
+            "SELECT id, first_name, last_name, version FROM vets ORDER BY last_name,first_name",
+            BeanPropertyRowMapper.newInstance(Vet.class));
+        List<Specialty> specialties = this.jdbcTemplate.query(
+            "SELECT id, name, version FROM specialties",
+            BeanPropertyRowMapper.newInstance(Specialty.class));
+        for (Vet vet : vets) {
+            List<Integer> specialtyIds = this.jdbcTemplate.queryForList(
+                "SELECT specialty_id FROM vet_specialties WHERE vet_id=?", Integer.class, vet.getId());
+            for (int specialtyId : specialtyIds) {
+                vet.addSpecialty(EntityUtils.getById(specialties, Specialty.class, specialtyId));
+            }
+        }
+        return vets;
+    }
+
+}
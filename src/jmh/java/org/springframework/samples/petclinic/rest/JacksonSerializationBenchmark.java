@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.benchmark.BenchmarkDatabase;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerRepositoryImpl;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcPetTypeRepositoryImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Throughput of the custom Jackson (de)serializers. Run with the <code>gc</code> profiler (the default of the
+ * <code>benchmark</code> Maven profile) to also get the allocation rate per operation.
+ * <p>
+ * The entity graph is loaded once from an in-memory HSQLDB database through {@link JdbcOwnerRepositoryImpl}, so it
+ * has the same shape as what the REST controllers serialize.
+ *
+ * @see JacksonCustomOwnerSerializer
+ * @see JacksonCustomPetDeserializer
+ * @see JacksonCustomVisitSerializer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonSerializationBenchmark {
+
+    private static final int NR_OF_OWNERS = 100;
+
+    private static final int NR_OF_PETS = 500;
+
+    private ObjectMapper mapper;
+
+    private Collection<Owner> owners;
+
+    private Owner owner;
+
+    private Owner ownerWithManyPets;
+
+    private Visit visit;
+
+    private byte[] petJson;
+
+    @Setup(Level.Trial)
+    public void loadEntities() throws IOException {
+        EmbeddedDatabase database = BenchmarkDatabase.create(NR_OF_OWNERS, 2, 3);
+        try {
+            JdbcOwnerRepositoryImpl ownerRepository = new JdbcOwnerRepositoryImpl(database, new JdbcPetTypeRepositoryImpl(database));
+            this.owners = ownerRepository.findAll();
+            this.owner = ownerRepository.findById(1);
+        } finally {
+            database.shutdown();
+        }
+        database = BenchmarkDatabase.create(1, NR_OF_PETS, 1);
+        try {
+            JdbcOwnerRepositoryImpl ownerRepository = new JdbcOwnerRepositoryImpl(database, new JdbcPetTypeRepositoryImpl(database));
+            this.ownerWithManyPets = ownerRepository.findById(1);
+        } finally {
+            database.shutdown();
+        }
+        Pet pet = this.owner.getPets().get(0);
+        this.visit = pet.getVisits().get(0);
+        this.mapper = new ObjectMapper();
+        this.petJson = this.mapper.writeValueAsBytes(pet);
+    }
+
+    @Benchmark
+    public byte[] serializeOwner() throws IOException {
+        return this.mapper.writeValueAsBytes(this.owner);
+    }
+
+    /**
+     * Serializes {@value #NR_OF_OWNERS} owners with 2 pets and 6 visits each, like a <code>GET /api/owners</code>
+     * response; <code>gc.alloc.rate.norm</code> divided by {@value #NR_OF_OWNERS} gives the garbage per owner.
+     */
+    @Benchmark
+    public byte[] serializeOwners() throws IOException {
+        return this.mapper.writeValueAsBytes(this.owners);
+    }
+
+    /**
+     * Serializes one owner with {@value #NR_OF_PETS} pets, where the cost of {@link Owner#getPets()} sorting the pets
+     * by name shows up.
+     */
+    @Benchmark
+    public byte[] serializeOwnerWithManyPets() throws IOException {
+        return this.mapper.writeValueAsBytes(this.ownerWithManyPets);
+    }
+
+    @Benchmark
+    public byte[] serializeVisit() throws IOException {
+        return this.mapper.writeValueAsBytes(this.visit);
+    }
+
+    @Benchmark
+    public Pet deserializePet() throws IOException {
+        return this.mapper.readValue(this.petJson, Pet.class);
+    }
+
+}
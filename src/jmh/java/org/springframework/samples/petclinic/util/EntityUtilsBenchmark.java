@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.samples.petclinic.benchmark.BenchmarkDatabase;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcOwnerRepositoryImpl;
+import org.springframework.samples.petclinic.repository.jdbc.JdbcPetTypeRepositoryImpl;
+
+/**
+ * Cost of {@link EntityUtils#getById} lookups, which scan the given collection linearly, for entities at the front
+ * and at the back of collections of various sizes loaded from an in-memory HSQLDB database, compared with lookups
+ * in an {@link EntityIndex} of the same entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityUtilsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private Collection<Owner> owners;
+
+    private EntityIndex<Owner> ownersById;
+
+    @Setup(Level.Trial)
+    public void loadOwners() {
+        EmbeddedDatabase database = BenchmarkDatabase.create(this.size, 0, 0);
+        try {
+            this.owners = new JdbcOwnerRepositoryImpl(database, new JdbcPetTypeRepositoryImpl(database)).findAll();
+            this.ownersById = EntityUtils.indexById(this.owners, Owner.class);
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Owner getFirstById() {
+        return EntityUtils.getById(this.owners, Owner.class, 1);
+    }
+
+    @Benchmark
+    public Owner getLastById() {
+        return EntityUtils.getById(this.owners, Owner.class, this.size);
+    }
+
+    @Benchmark
+    public Owner getLastFromIndex() {
+        return this.ownersById.getById(this.size);
+    }
+
+}
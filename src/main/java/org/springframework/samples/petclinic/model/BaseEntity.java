@@ -15,15 +15,21 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Simple JavaBean domain object with an id property. Used as a base class for objects needing this property.
+ * <p>
+ * The version is incremented each time the entity is updated; it is used for optimistic locking with JPA and to
+ * compute the ETags of the REST resources. It is a primitive so that references deserialized without a version are
+ * not mistaken for transient entities.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -34,6 +40,10 @@ public class BaseEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     protected Integer id;
 
+    @Version
+    @Column(name = "version")
+    private int version;
+
     public Integer getId() {
         return id;
     }
@@ -41,6 +51,15 @@ public class BaseEntity {
     public void setId(Integer id) {
         this.id = id;
     }
+    @JsonIgnore
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @JsonIgnore
     public boolean isNew() {
         return this.id == null;
@@ -15,6 +15,8 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import java.util.Comparator;
+
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
 
@@ -31,6 +33,12 @@ import javax.validation.constraints.NotEmpty;
 @MappedSuperclass
 public class NamedEntity extends BaseEntity {
 
+    /**
+     * Orders named entities by name, ignoring case, with unnamed ones last.
+     */
+    static final Comparator<NamedEntity> NAME_ORDER =
+        Comparator.comparing(NamedEntity::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
     @Column(name = "name")
     @NotEmpty
     private String name;
@@ -25,13 +25,16 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotEmpty;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.samples.petclinic.rest.JacksonCustomOwnerDeserializer;
 import org.springframework.samples.petclinic.rest.JacksonCustomOwnerSerializer;
@@ -50,9 +53,18 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 @Entity
 @Table(name = "owners")
+@NamedEntityGraph(name = Owner.PETS_GRAPH,
+    attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pet"),
+    subgraphs = @NamedSubgraph(name = "pet", attributeNodes = {@NamedAttributeNode("type"), @NamedAttributeNode("visits")}))
 @JsonSerialize(using = JacksonCustomOwnerSerializer.class)
 @JsonDeserialize(using = JacksonCustomOwnerDeserializer.class)
 public class Owner extends Person {
+
+    /**
+     * Entity graph of an owner with its pets, their type and their visits, so that they are all fetched in one query.
+     */
+    public static final String PETS_GRAPH = "Owner.pets";
+
     @Column(name = "address")
     @NotEmpty
     private String address;
@@ -69,6 +81,13 @@ public class Owner extends Person {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
     private Set<Pet> pets;
 
+    /**
+     * Sorted, unmodifiable snapshot of {@link #pets} returned by {@link #getPets()}, computed on first use and reset
+     * whenever a pet is added or renamed, or the owner is loaded by the persistence provider (which sets the fields
+     * directly).
+     */
+    @Transient
+    private volatile List<Pet> sortedPets;
 
     public String getAddress() {
         return this.address;
@@ -103,17 +122,30 @@ public class Owner extends Person {
 
     protected void setPetsInternal(Set<Pet> pets) {
         this.pets = pets;
+        resetSortedPets();
     }
 
     public List<Pet> getPets() {
-        List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-        PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedPets);
+        Set<Pet> pets = getPetsInternal();
+        List<Pet> sorted = this.sortedPets;
+        if (sorted == null) {
+            sorted = new ArrayList<>(pets);
+            sorted.sort(NamedEntity.NAME_ORDER);
+            sorted = Collections.unmodifiableList(sorted);
+            this.sortedPets = sorted;
+        }
+        return sorted;
     }
 
     public void addPet(Pet pet) {
         getPetsInternal().add(pet);
         pet.setOwner(this);
+        resetSortedPets();
+    }
+
+    @PostLoad
+    void resetSortedPets() {
+        this.sortedPets = null;
     }
 
     /**
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+/**
+ * Read-only view of an {@link Owner} for list screens: identity, name, city and number of pets, read by a single
+ * aggregate query without loading the pets or their visits.
+ * <p>
+ * The Spring Data JPA profile returns interface projections backed by the query results; the other profiles return
+ * {@link SimpleOwnerSummary} instances.
+ */
+public interface OwnerSummary {
+
+    Integer getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getCity();
+
+    long getPetCount();
+
+}
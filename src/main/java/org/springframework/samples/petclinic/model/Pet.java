@@ -89,6 +89,15 @@ public class Pet extends NamedEntity {
         this.type = type;
     }
 
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        if (this.owner != null) {
+            // the owner keeps its pets sorted by name
+            this.owner.resetSortedPets();
+        }
+    }
+
     public Owner getOwner() {
         return this.owner;
     }
@@ -26,12 +26,11 @@ import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlElement;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
-
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
@@ -50,7 +49,15 @@ public class Vet extends Person {
     @JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
         inverseJoinColumns = @JoinColumn(name = "specialty_id"))
     private Set<Specialty> specialties;
-    
+
+    /**
+     * Sorted, unmodifiable snapshot of {@link #specialties} returned by {@link #getSpecialties()}, computed on first
+     * use and reset whenever the specialties change, or the vet is loaded by the persistence provider (which sets the
+     * fields directly). Vets are cached and shared between requests, hence volatile.
+     */
+    @Transient
+    private volatile List<Specialty> sortedSpecialties;
+
     @JsonIgnore
     protected Set<Specialty> getSpecialtiesInternal() {
         if (this.specialties == null) {
@@ -61,13 +68,20 @@ public class Vet extends Person {
 
     protected void setSpecialtiesInternal(Set<Specialty> specialties) {
         this.specialties = specialties;
+        resetSortedSpecialties();
     }
 
     @XmlElement
     public List<Specialty> getSpecialties() {
-        List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-        PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedSpecs);
+        Set<Specialty> specialties = getSpecialtiesInternal();
+        List<Specialty> sorted = this.sortedSpecialties;
+        if (sorted == null) {
+            sorted = new ArrayList<>(specialties);
+            sorted.sort(NamedEntity.NAME_ORDER);
+            sorted = Collections.unmodifiableList(sorted);
+            this.sortedSpecialties = sorted;
+        }
+        return sorted;
     }
     @JsonIgnore
     public int getNrOfSpecialties() {
@@ -76,10 +90,17 @@ public class Vet extends Person {
 
     public void addSpecialty(Specialty specialty) {
         getSpecialtiesInternal().add(specialty);
+        resetSortedSpecialties();
     }
     
     public void clearSpecialties() {
         getSpecialtiesInternal().clear();
+        resetSortedSpecialties();
+    }
+
+    @PostLoad
+    void resetSortedSpecialties() {
+        this.sortedSpecialties = null;
     }
 
 }
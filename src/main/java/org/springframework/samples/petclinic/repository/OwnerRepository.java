@@ -16,10 +16,13 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant with Spring Data naming
@@ -68,7 +71,56 @@ public interface OwnerRepository {
      * found)
      */
 	Collection<Owner> findAll() throws DataAccessException;
+
+    /**
+     * Retrieve an {@link OwnerSummary} of every <code>Owner</code>, ordered by last and first name, with one query
+     * that counts the pets instead of loading them.
+     *
+     * @return a <code>Collection</code> of <code>OwnerSummary</code>s (or an empty <code>Collection</code> if none
+     * found)
+     */
+	Collection<OwnerSummary> findAllSummaries() throws DataAccessException;
+
+    /**
+     * Retrieve an {@link OwnerSummary} of the <code>Owner</code>s matching every search term, ordered by last and
+     * first name: a term matches when it is a prefix of the first name, last name or city, ignoring case, or of the
+     * telephone.
+     *
+     * @param terms the lower-cased search terms, see {@link org.springframework.samples.petclinic.util.OwnerSearch#terms}
+     * @param limit the maximum number of owners to return
+     * @return a <code>Collection</code> of <code>OwnerSummary</code>s (or an empty <code>Collection</code> if none
+     * found)
+     */
+	Collection<OwnerSummary> search(List<String> terms, int limit) throws DataAccessException;
+
+    /**
+     * Retrieve a page of <code>Owner</code>s from the data store using keyset pagination: owners are ordered by id
+     * and only those with an id strictly greater than <code>afterId</code> are returned.
+     *
+     * @param afterId the id of the last owner of the previous page (0 for the first page)
+     * @param limit   the maximum number of owners to return
+     * @return a <code>Collection</code> of <code>Owner</code>s ordered by id (or an empty <code>Collection</code> if none
+     * found)
+     */
+	Collection<Owner> findPage(int afterId, int limit) throws DataAccessException;
+
+    /**
+     * Retrieve the version of an <code>Owner</code> together with its pets, their types and their visits from the data
+     * store, without loading them. It changes whenever any of them is saved, added or deleted.
+     *
+     * @param id the id of the owner
+     * @return the version, or <code>null</code> if the owner does not exist
+     */
+	Long findGraphVersion(int id) throws DataAccessException;
 	
+    /**
+     * Hand every <code>Owner</code> in the data store, together with its pets and visits, to the given action one at a
+     * time, without materializing the whole table in memory.
+     *
+     * @param action the callback invoked for each <code>Owner</code>, in ascending id order
+     */
+	void streamAll(Consumer<? super Owner> action) throws DataAccessException;
+
     /**
      * Delete an <code>Owner</code> to the data store by <code>Owner</code>.
      *
@@ -16,7 +16,10 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -67,6 +70,41 @@ public interface PetRepository {
      */
 	Collection<Pet> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve the <code>Pet</code>s matching all of the given criteria, filtered by the data store rather than in
+     * memory. A <code>null</code> criterion matches every <code>Pet</code>.
+     *
+     * @param typeId     the id of the <code>PetType</code> of the pets
+     * @param ownerId    the id of the <code>Owner</code> of the pets
+     * @param bornAfter  the day after which the pets were born, exclusive
+     * @param bornBefore the day before which the pets were born, exclusive
+     * @return a <code>Collection</code> of matching <code>Pet</code>s ordered by id (or an empty
+     * <code>Collection</code> if none found)
+     */
+	Collection<Pet> findByCriteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore)
+		throws DataAccessException;
+
+    /**
+     * Retrieve the given properties of the <code>Pet</code>s matching all of the given criteria, as
+     * {@link #findByCriteria} does. The type and the owner are only joined, and the visits only read, when among the
+     * properties; the returned <code>Pet</code>s are detached copies holding nothing else.
+     *
+     * @param properties the top level properties to read: the id, name and birth date are always read, the
+     *                   <code>type</code>, <code>owner</code> and <code>visits</code> only when among them
+     * @return a <code>Collection</code> of matching <code>Pet</code>s ordered by id (or an empty
+     * <code>Collection</code> if none found)
+     */
+	Collection<Pet> findProjectionsByCriteria(Set<String> properties, Integer typeId, Integer ownerId, Date bornAfter,
+		Date bornBefore) throws DataAccessException;
+
+    /**
+     * Hand every <code>Pet</code> in the data store, together with its type, owner and visits, to the given action one
+     * at a time, without materializing the whole table in memory.
+     *
+     * @param action the callback invoked for each <code>Pet</code>
+     */
+	void streamAll(Consumer<? super Pet> action) throws DataAccessException;
+
     /**
      * Delete an <code>Pet</code> to the data store by <code>Pet</code>.
      *
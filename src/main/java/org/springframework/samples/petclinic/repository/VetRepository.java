@@ -16,6 +16,7 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Vet;
@@ -39,6 +40,14 @@ public interface VetRepository {
      */
     Collection<Vet> findAll() throws DataAccessException;
     
+    /**
+     * Hand every <code>Vet</code> in the data store, together with its specialties, to the given action one at a time,
+     * without materializing the whole table in memory.
+     *
+     * @param action the callback invoked for each <code>Vet</code>
+     */
+	void streamAll(Consumer<? super Vet> action) throws DataAccessException;
+
 	Vet findById(int id) throws DataAccessException;
 
 	void save(Vet vet) throws DataAccessException;
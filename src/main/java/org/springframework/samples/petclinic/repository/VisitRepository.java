@@ -16,7 +16,9 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -42,12 +44,43 @@ public interface VisitRepository {
      */
     void save(Visit visit) throws DataAccessException;
 
+    /**
+     * Save several <code>Visits</code> to the data store at once, inserting the new and updating the existing ones.
+     * Statements are sent in batches rather than one round trip per visit; new visits get their generated id set.
+     *
+     * @param visits the <code>Visits</code> to save
+     * @see BaseEntity#isNew
+     */
+    void saveAll(Collection<Visit> visits) throws DataAccessException;
+
     List<Visit> findByPetId(Integer petId);
     
 	Visit findById(int id) throws DataAccessException;
 	
 	Collection<Visit> findAll() throws DataAccessException;
 
+	/**
+	 * Retrieve the <code>Visit</code>s matching all of the given criteria, filtered by the data store rather than in
+	 * memory. A <code>null</code> criterion matches every <code>Visit</code>. A date range is served by the
+	 * <code>(visit_date, pet_id)</code> index of the <code>visits</code> table.
+	 *
+	 * @param from    the first day of the visits, inclusive
+	 * @param to      the last day of the visits, inclusive
+	 * @param petId   the id of the <code>Pet</code> visited
+	 * @param ownerId the id of the <code>Owner</code> of the pet visited
+	 * @return a <code>Collection</code> of matching <code>Visit</code>s ordered by date and id (or an empty
+	 * <code>Collection</code> if none found)
+	 */
+	Collection<Visit> findByCriteria(Date from, Date to, Integer petId, Integer ownerId) throws DataAccessException;
+
+	/**
+	 * Hand every <code>Visit</code> in the data store, together with its pet, to the given action one at a time,
+	 * without materializing the whole table in memory.
+	 *
+	 * @param action the callback invoked for each <code>Visit</code>
+	 */
+	void streamAll(Consumer<? super Visit> action) throws DataAccessException;
+
 	void delete(Visit visit) throws DataAccessException;
 
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Inserts new entities into a table with an <code>id</code> primary key and sets the id of the entity: the one
+ * generated by the identity column, or, once an id incrementer is set, one taken from the incrementer and inserted
+ * along with the other columns.
+ *
+ * @see org.springframework.samples.petclinic.util.IdGenerationConfig
+ */
+class JdbcEntityInsert {
+
+    private final SimpleJdbcInsert generatedKeyInsert;
+
+    private final SimpleJdbcInsert assignedKeyInsert;
+
+    private DataFieldMaxValueIncrementer idIncrementer;
+
+    JdbcEntityInsert(DataSource dataSource, String tableName) {
+        this.generatedKeyInsert = new SimpleJdbcInsert(dataSource).withTableName(tableName).usingGeneratedKeyColumns("id");
+        this.assignedKeyInsert = new SimpleJdbcInsert(dataSource).withTableName(tableName);
+    }
+
+    void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+        this.idIncrementer = idIncrementer;
+    }
+
+    /**
+     * Whether the ids are assigned from the id incrementer rather than generated by the database.
+     */
+    boolean isAssigningIds() {
+        return this.idIncrementer != null;
+    }
+
+    int nextId() {
+        return this.idIncrementer.nextIntValue();
+    }
+
+    /**
+     * Inserts the entity with the column values of the parameter source created for it, which must include the
+     * <code>id</code>.
+     */
+    <T extends BaseEntity> void insert(T entity, Function<? super T, ? extends SqlParameterSource> parameterSource) {
+        if (isAssigningIds()) {
+            entity.setId(nextId());
+            this.assignedKeyInsert.execute(parameterSource.apply(entity));
+        } else {
+            Number newKey = this.generatedKeyInsert.executeAndReturnKey(parameterSource.apply(entity));
+            entity.setId(newKey.intValue());
+        }
+    }
+
+}
@@ -15,29 +15,39 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.OwnerSearch;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -56,19 +66,36 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
+    /**
+     * Maximum number of owner ids bound to a single <code>IN</code> clause when loading pets and visits.
+     */
+    private static final int OWNER_IDS_BATCH_SIZE = 500;
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
-    private SimpleJdbcInsert insertOwner;
+    private JdbcEntityInsert insertOwner;
+
+    private PetTypeRepository petTypeRepository;
+
+    @Value("${petclinic.owner-search.case-insensitive-collation:false}")
+    private boolean caseInsensitiveCollation;
 
     @Autowired
-    public JdbcOwnerRepositoryImpl(DataSource dataSource) {
+    public JdbcOwnerRepositoryImpl(DataSource dataSource, PetTypeRepository petTypeRepository) {
 
-        this.insertOwner = new SimpleJdbcInsert(dataSource)
-            .withTableName("owners")
-            .usingGeneratedKeyColumns("id");
+        this.insertOwner = new JdbcEntityInsert(dataSource, "owners");
 
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
+        this.petTypeRepository = petTypeRepository;
+    }
+
+    /**
+     * Assigns the ids of new owners from the given incrementer instead of the identity column.
+     */
+    @Autowired(required = false)
+    public void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+        this.insertOwner.setIdIncrementer(idIncrementer);
     }
 
 
@@ -82,7 +109,7 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         Map<String, Object> params = new HashMap<>();
         params.put("lastName", lastName + "%");
         List<Owner> owners = this.namedParameterJdbcTemplate.query(
-            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE last_name like :lastName",
+            "SELECT id, first_name, last_name, address, city, telephone, version FROM owners WHERE last_name like :lastName",
             params,
             BeanPropertyRowMapper.newInstance(Owner.class)
         );
@@ -101,7 +128,7 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
             Map<String, Object> params = new HashMap<>();
             params.put("id", id);
             owner = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
+                "SELECT id, first_name, last_name, address, city, telephone, version FROM owners WHERE id= :id",
                 params,
                 BeanPropertyRowMapper.newInstance(Owner.class)
             );
@@ -113,84 +140,173 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
     }
 
     public void loadPetsAndVisits(final Owner owner) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("id", owner.getId());
-        final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
-            "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id WHERE owner_id=:id ORDER BY pets.id",
-            params,
-            new JdbcPetVisitExtractor()
-        );
-        Collection<PetType> petTypes = getPetTypes();
-        for (JdbcPet pet : pets) {
-            pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
-            owner.addPet(pet);
-        }
+        loadOwnersPetsAndVisits(Collections.singletonList(owner));
     }
 
     @Override
     public void save(Owner owner) throws DataAccessException {
         BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(owner);
         if (owner.isNew()) {
-            Number newKey = this.insertOwner.executeAndReturnKey(parameterSource);
-            owner.setId(newKey.intValue());
+            this.insertOwner.insert(owner, BeanPropertySqlParameterSource::new);
         } else {
-            this.namedParameterJdbcTemplate.update(
+            int updated = this.namedParameterJdbcTemplate.update(
                 "UPDATE owners SET first_name=:firstName, last_name=:lastName, address=:address, " +
-                    "city=:city, telephone=:telephone WHERE id=:id",
+                    "city=:city, telephone=:telephone, version=version+1 WHERE id=:id AND version=:version",
                 parameterSource);
+            if (updated == 0) {
+                throw new ObjectOptimisticLockingFailureException(Owner.class, owner.getId());
+            }
+            owner.setVersion(owner.getVersion() + 1);
         }
     }
 
     public Collection<PetType> getPetTypes() throws DataAccessException {
-        return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types ORDER BY name", new HashMap<String, Object>(),
-            BeanPropertyRowMapper.newInstance(PetType.class));
+        return this.petTypeRepository.findAll();
     }
 
     /**
      * Loads the {@link Pet} and {@link Visit} data for the supplied {@link List} of {@link Owner Owners}.
+     * <p>
+     * Pets and visits are fetched with one <code>IN</code> query per {@link #OWNER_IDS_BATCH_SIZE} owners and the pet
+     * types are read once, so the number of round trips does not grow with the number of owners.
      *
      * @param owners the list of owners for whom the pet and visit data should be loaded
      * @see #loadPetsAndVisits(Owner)
      */
     private void loadOwnersPetsAndVisits(List<Owner> owners) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        EntityIndex<Owner> ownersById = new EntityIndex<Owner>(Owner.class, owners.size());
+        List<Integer> ownerIds = new ArrayList<>(owners.size());
         for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
+            if (ownersById.put(owner) == null) {
+                ownerIds.add(owner.getId());
+            }
+        }
+        EntityIndex<PetType> petTypesById = EntityUtils.indexById(getPetTypes(), PetType.class);
+        for (int from = 0; from < ownerIds.size(); from += OWNER_IDS_BATCH_SIZE) {
+            List<Integer> batch = ownerIds.subList(from, Math.min(from + OWNER_IDS_BATCH_SIZE, ownerIds.size()));
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", batch);
+            final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+                "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id WHERE owner_id IN (:ids) ORDER BY pets.id",
+                params,
+                new JdbcPetVisitExtractor()
+            );
+            for (JdbcPet pet : pets) {
+                pet.setType(petTypesById.getById(pet.getTypeId()));
+                ownersById.get(pet.getOwnerId()).addPet(pet);
+            }
         }
     }
     
 	@Override
 	public Collection<Owner> findAll() throws DataAccessException {
 		List<Owner> owners = this.namedParameterJdbcTemplate.query(
-	            "SELECT id, first_name, last_name, address, city, telephone FROM owners",
+	            "SELECT id, first_name, last_name, address, city, telephone, version FROM owners",
 	            new HashMap<String, Object>(),
 	            BeanPropertyRowMapper.newInstance(Owner.class));
-		for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
-        }
+		loadOwnersPetsAndVisits(owners);
 	    return owners;
 	}
 
+	@Override
+	public Collection<OwnerSummary> findAllSummaries() throws DataAccessException {
+		return this.namedParameterJdbcTemplate.query(
+			"SELECT owners.id, first_name, last_name, city, COUNT(pets.id) AS pet_count " +
+				"FROM owners LEFT OUTER JOIN pets ON pets.owner_id = owners.id " +
+				"GROUP BY owners.id, first_name, last_name, city ORDER BY last_name, first_name, owners.id",
+			new HashMap<String, Object>(),
+			new JdbcOwnerSummaryRowMapper());
+	}
+
+	@Override
+	public Collection<OwnerSummary> search(List<String> terms, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		for (int i = 0; i < terms.size(); i++) {
+			params.put("term" + i, OwnerSearch.likePattern(terms.get(i)));
+		}
+		params.put("limit", limit);
+		return this.namedParameterJdbcTemplate.query(
+			"SELECT owners.id, first_name, last_name, city, COUNT(pets.id) AS pet_count " +
+				"FROM owners LEFT OUTER JOIN pets ON pets.owner_id = owners.id WHERE " +
+				OwnerSearch.condition(Arrays.asList("first_name", "last_name", "city"), "telephone", terms.size(),
+					this.caseInsensitiveCollation) +
+				" GROUP BY owners.id, first_name, last_name, city ORDER BY last_name, first_name, owners.id LIMIT :limit",
+			params,
+			new JdbcOwnerSummaryRowMapper());
+	}
+
+	@Override
+	public Collection<Owner> findPage(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		List<Owner> owners = this.namedParameterJdbcTemplate.query(
+			"SELECT id, first_name, last_name, address, city, telephone, version FROM owners WHERE id > :afterId ORDER BY id LIMIT :limit",
+			params,
+			BeanPropertyRowMapper.newInstance(Owner.class));
+		loadOwnersPetsAndVisits(owners);
+		return owners;
+	}
+
+	/**
+	 * Folds the ids and versions of the owner, its pets, their types and their visits, read by two queries ordered by
+	 * id (see {@link EntityUtils#versionOfRows}).
+	 */
+	@Override
+	public Long findGraphVersion(int id) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("id", id);
+		List<Object[]> rows = this.namedParameterJdbcTemplate.query(
+			"SELECT owners.version, pets.id, pets.version, types.id, types.version FROM owners " +
+				"LEFT OUTER JOIN pets ON pets.owner_id = owners.id LEFT OUTER JOIN types ON pets.type_id = types.id " +
+				"WHERE owners.id = :id ORDER BY pets.id",
+			params,
+			(rs, row) -> new Object[] {rs.getObject(1), rs.getObject(2), rs.getObject(3), rs.getObject(4), rs.getObject(5)});
+		if (rows.isEmpty()) {
+			return null;
+		}
+		rows.addAll(this.namedParameterJdbcTemplate.query(
+			"SELECT visits.id, visits.version FROM visits JOIN pets ON visits.pet_id = pets.id " +
+				"WHERE pets.owner_id = :id ORDER BY visits.id",
+			params,
+			(rs, row) -> new Object[] {rs.getObject(1), rs.getObject(2)}));
+		return EntityUtils.versionOfRows(rows);
+	}
+
+	/**
+	 * Walks the owners table page by page with {@link #findPage(int, int)}, so that at most
+	 * {@link EntityUtils#STREAM_FETCH_SIZE} owners and their pets and visits are held in memory at a time.
+	 */
+	@Override
+	public void streamAll(Consumer<? super Owner> action) throws DataAccessException {
+		int afterId = 0;
+		Collection<Owner> page;
+		do {
+			page = findPage(afterId, EntityUtils.STREAM_FETCH_SIZE);
+			for (Owner owner : page) {
+				action.accept(owner);
+				afterId = owner.getId();
+			}
+		} while (page.size() == EntityUtils.STREAM_FETCH_SIZE);
+	}
+
+	/**
+	 * Deletes the owner with all of its pets and their visits as stored in the database, whatever the pets and visits
+	 * of the given instance, in three statements however many visits there are.
+	 */
 	@Override
 	@Transactional
 	public void delete(Owner owner) throws DataAccessException {
-		Map<String, Object> owner_params = new HashMap<>();
-		owner_params.put("id", owner.getId());
-        List<Pet> pets = owner.getPets();
-        // cascade delete pets
-        for (Pet pet : pets){
-        	Map<String, Object> pet_params = new HashMap<>();
-        	pet_params.put("id", pet.getId());
-        	// cascade delete visits
-        	List<Visit> visits = pet.getVisits();
-            for (Visit visit : visits){
-            	Map<String, Object> visit_params = new HashMap<>();
-            	visit_params.put("id", visit.getId());
-            	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-            }
-            this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
-        }
-        this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id=:id", owner_params);
+		Map<String, Object> params = new HashMap<>();
+		params.put("id", owner.getId());
+		// cascade delete visits and pets
+		this.namedParameterJdbcTemplate.update(
+			"DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE owner_id=:id)", params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE owner_id=:id", params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id=:id", params);
 	}
 
 
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.SimpleOwnerSummary;
+
+/**
+ * {@link RowMapper} implementation mapping the <code>id</code>, <code>first_name</code>, <code>last_name</code>,
+ * <code>city</code> and <code>pet_count</code> columns of an owners query to an {@link OwnerSummary}.
+ */
+class JdbcOwnerSummaryRowMapper implements RowMapper<OwnerSummary> {
+
+    @Override
+    public OwnerSummary mapRow(ResultSet rs, int rownum) throws SQLException {
+        return new SimpleOwnerSummary(rs.getInt("id"), rs.getString("first_name"), rs.getString("last_name"),
+            rs.getString("city"), rs.getLong("pet_count"));
+    }
+}
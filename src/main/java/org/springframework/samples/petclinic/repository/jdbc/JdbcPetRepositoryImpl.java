@@ -15,11 +15,16 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 
@@ -28,9 +33,11 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
@@ -38,8 +45,11 @@ import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.QueryCriteria;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -57,32 +67,45 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
-    private SimpleJdbcInsert insertPet;
+    private JdbcTemplate streamingJdbcTemplate;
+
+    private JdbcEntityInsert insertPet;
 
     private OwnerRepository ownerRepository;
 
     private VisitRepository visitRepository;
 
+    private PetTypeRepository petTypeRepository;
 
     @Autowired
     public JdbcPetRepositoryImpl(DataSource dataSource,
     		OwnerRepository ownerRepository,
-    		VisitRepository visitRepository) {
+    		VisitRepository visitRepository,
+    		PetTypeRepository petTypeRepository) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
-        this.insertPet = new SimpleJdbcInsert(dataSource)
-            .withTableName("pets")
-            .usingGeneratedKeyColumns("id");
+        this.streamingJdbcTemplate = new StreamingJdbcTemplate(dataSource);
+
+        this.insertPet = new JdbcEntityInsert(dataSource, "pets");
 
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
+        this.petTypeRepository = petTypeRepository;
+    }
+
+    /**
+     * Assigns the ids of new pets from the given incrementer instead of the identity column.
+     */
+    @Autowired(required = false)
+    public void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+        this.insertPet.setIdIncrementer(idIncrementer);
     }
 
     @Override
     public List<PetType> findPetTypes() throws DataAccessException {
         Map<String, Object> params = new HashMap<>();
         return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types ORDER BY name",
+            "SELECT id, name, version FROM types ORDER BY name",
             params,
             BeanPropertyRowMapper.newInstance(PetType.class));
     }
@@ -104,14 +127,16 @@ public class JdbcPetRepositoryImpl implements PetRepository {
     @Override
     public void save(Pet pet) throws DataAccessException {
         if (pet.isNew()) {
-            Number newKey = this.insertPet.executeAndReturnKey(
-                createPetParameterSource(pet));
-            pet.setId(newKey.intValue());
+            this.insertPet.insert(pet, this::createPetParameterSource);
         } else {
-            this.namedParameterJdbcTemplate.update(
+            int updated = this.namedParameterJdbcTemplate.update(
                 "UPDATE pets SET name=:name, birth_date=:birth_date, type_id=:type_id, " +
-                    "owner_id=:owner_id WHERE id=:id",
+                    "owner_id=:owner_id, version=version+1 WHERE id=:id AND version=:version",
                 createPetParameterSource(pet));
+            if (updated == 0) {
+                throw new ObjectOptimisticLockingFailureException(Pet.class, pet.getId());
+            }
+            pet.setVersion(pet.getVersion() + 1);
         }
     }
 
@@ -124,7 +149,8 @@ public class JdbcPetRepositoryImpl implements PetRepository {
             .addValue("name", pet.getName())
             .addValue("birth_date", pet.getBirthDate())
             .addValue("type_id", pet.getType().getId())
-            .addValue("owner_id", pet.getOwner().getId());
+            .addValue("owner_id", pet.getOwner().getId())
+            .addValue("version", pet.getVersion());
     }
     
 	@Override
@@ -136,34 +162,142 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 				.query("SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets",
 				params,
 				new JdbcPetRowMapper());
-		Collection<PetType> petTypes = this.namedParameterJdbcTemplate.query("SELECT id, name FROM types ORDER BY name",
-				new HashMap<String,
-				Object>(), BeanPropertyRowMapper.newInstance(PetType.class));
+		Collection<PetType> petTypes = this.petTypeRepository.findAll();
 		Collection<Owner> owners = this.namedParameterJdbcTemplate.query(
-				"SELECT id, first_name, last_name, address, city, telephone FROM owners ORDER BY last_name",
+				"SELECT id, first_name, last_name, address, city, telephone, version FROM owners ORDER BY last_name",
 				new HashMap<String, Object>(),
 				BeanPropertyRowMapper.newInstance(Owner.class));
+		EntityIndex<PetType> petTypesById = EntityUtils.indexById(petTypes, PetType.class);
+		EntityIndex<Owner> ownersById = EntityUtils.indexById(owners, Owner.class);
 		for (JdbcPet jdbcPet : jdbcPets) {
-			jdbcPet.setType(EntityUtils.getById(petTypes, PetType.class, jdbcPet.getTypeId()));
-			jdbcPet.setOwner(EntityUtils.getById(owners, Owner.class, jdbcPet.getOwnerId()));
+			jdbcPet.setType(petTypesById.getById(jdbcPet.getTypeId()));
+			jdbcPet.setOwner(ownersById.getById(jdbcPet.getOwnerId()));
 			// TODO add visits
 			pets.add(jdbcPet);
 		}
 		return pets;
 	}
 
+	@Override
+	public Collection<Pet> findByCriteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore)
+		throws DataAccessException {
+		StringBuilder sql = new StringBuilder(
+			"SELECT pets.id as pets_id, pets.name, birth_date, type_id, owner_id, types.name as type_name, " +
+				"first_name, last_name, address, city, telephone, visits.id as visit_id, visit_date, description, " +
+				"visits.pet_id as visits_pet_id FROM pets JOIN types ON pets.type_id = types.id " +
+				"JOIN owners ON pets.owner_id = owners.id LEFT OUTER JOIN visits ON pets.id = visits.pet_id");
+		QueryCriteria criteria = petCriteria(typeId, ownerId, bornAfter, bornBefore);
+		sql.append(criteria.where()).append(" ORDER BY pets.id");
+		return new ArrayList<Pet>(this.namedParameterJdbcTemplate.query(
+			sql.toString(), criteria.sqlParameters(), new JdbcPetVisitExtractor(new JdbcPetWithOwnerRowMapper())));
+	}
+
+	@Override
+	public Collection<Pet> findProjectionsByCriteria(Set<String> properties, Integer typeId, Integer ownerId,
+		Date bornAfter, Date bornBefore) throws DataAccessException {
+		boolean withType = properties.contains("type");
+		boolean withOwner = properties.contains("owner");
+		StringBuilder sql = new StringBuilder("SELECT pets.id as pets_id, pets.name, birth_date");
+		if (withType) {
+			sql.append(", type_id, types.name as type_name");
+		}
+		if (withOwner) {
+			sql.append(", owner_id, first_name, last_name, address, city, telephone");
+		}
+		sql.append(" FROM pets");
+		if (withType) {
+			sql.append(" JOIN types ON pets.type_id = types.id");
+		}
+		if (withOwner) {
+			sql.append(" JOIN owners ON pets.owner_id = owners.id");
+		}
+		QueryCriteria criteria = petCriteria(typeId, ownerId, bornAfter, bornBefore);
+		sql.append(criteria.where()).append(" ORDER BY pets.id");
+		List<Pet> pets = this.namedParameterJdbcTemplate.query(sql.toString(), criteria.sqlParameters(), (rs, rowNum) -> {
+			Pet pet = new Pet();
+			pet.setId(rs.getInt("pets_id"));
+			pet.setName(rs.getString("name"));
+			pet.setBirthDate(new Date(rs.getDate("birth_date").getTime()));
+			if (withType) {
+				PetType type = new PetType();
+				type.setId(rs.getInt("type_id"));
+				type.setName(rs.getString("type_name"));
+				pet.setType(type);
+			}
+			if (withOwner) {
+				Owner owner = new Owner();
+				owner.setId(rs.getInt("owner_id"));
+				owner.setFirstName(rs.getString("first_name"));
+				owner.setLastName(rs.getString("last_name"));
+				owner.setAddress(rs.getString("address"));
+				owner.setCity(rs.getString("city"));
+				owner.setTelephone(rs.getString("telephone"));
+				pet.setOwner(owner);
+			}
+			return pet;
+		});
+		if (properties.contains("visits") && !pets.isEmpty()) {
+			EntityIndex<Pet> petsById = EntityUtils.indexById(pets, Pet.class);
+			JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+			this.namedParameterJdbcTemplate.query(
+				"SELECT visits.id as visit_id, visits.pet_id, visit_date, description FROM visits " +
+					"JOIN pets ON visits.pet_id = pets.id" + criteria.where() + " ORDER BY visits.id",
+				criteria.sqlParameters(), (rs, rowNum) -> {
+					Visit visit = visitRowMapper.mapRow(rs, rowNum);
+					petsById.getById(rs.getInt("pet_id")).addVisit(visit);
+					return visit;
+				});
+		}
+		return pets;
+	}
+
+	private static QueryCriteria petCriteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) {
+		return new QueryCriteria()
+			.and("pets.type_id = :typeId", "typeId", typeId)
+			.and("pets.owner_id = :ownerId", "ownerId", ownerId)
+			.and("birth_date > :bornAfter", "bornAfter", bornAfter)
+			.and("birth_date < :bornBefore", "bornBefore", bornBefore);
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Pet> action) throws DataAccessException {
+		OneToManyRowCallbackHandler<JdbcPet, Visit> handler = new OneToManyRowCallbackHandler<JdbcPet, Visit>(
+			new JdbcPetWithOwnerRowMapper(), new JdbcVisitRowMapper(), action) {
+
+			@Override
+			protected Integer mapPrimaryKey(ResultSet rs) throws SQLException {
+				return rs.getInt("pets_id");
+			}
+
+			@Override
+			protected Integer mapForeignKey(ResultSet rs) throws SQLException {
+				if (rs.getObject("visit_id") == null) {
+					return null;
+				}
+				return rs.getInt("visit_id");
+			}
+
+			@Override
+			protected void addChild(JdbcPet pet, Visit visit) {
+				pet.addVisit(visit);
+			}
+		};
+		this.streamingJdbcTemplate.query(
+			"SELECT pets.id as pets_id, pets.name, birth_date, type_id, owner_id, types.name as type_name, " +
+				"first_name, last_name, address, city, telephone, visits.id as visit_id, visit_date, description " +
+				"FROM pets JOIN types ON pets.type_id = types.id JOIN owners ON pets.owner_id = owners.id " +
+				"LEFT OUTER JOIN visits ON pets.id = visits.pet_id ORDER BY pets.id",
+			handler);
+		handler.finish();
+	}
+
 	@Override
 	public void delete(Pet pet) throws DataAccessException {
-		Map<String, Object> pet_params = new HashMap<>();
-		pet_params.put("id", pet.getId());
-		List<Visit> visits = pet.getVisits();
+		Map<String, Object> params = new HashMap<>();
+		params.put("id", pet.getId());
 		// cascade delete visits
-		for (Visit visit : visits) {
-			Map<String, Object> visit_params = new HashMap<>();
-			visit_params.put("id", visit.getId());
-			this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-		}
-		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE pet_id=:id", params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", params);
 	}
 
 }
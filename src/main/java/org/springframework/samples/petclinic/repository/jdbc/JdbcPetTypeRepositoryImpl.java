@@ -16,26 +16,24 @@
 
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
-import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
-import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.stereotype.Repository;
 
@@ -50,14 +48,20 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 	
-	private SimpleJdbcInsert insertPetType;
+	private JdbcEntityInsert insertPetType;
 	
 	@Autowired
 	public JdbcPetTypeRepositoryImpl(DataSource dataSource) {
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-		this.insertPetType = new SimpleJdbcInsert(dataSource)
-	            .withTableName("types")
-	            .usingGeneratedKeyColumns("id");
+		this.insertPetType = new JdbcEntityInsert(dataSource, "types");
+	}
+
+	/**
+	 * Assigns the ids of new pet types from the given incrementer instead of the identity column.
+	 */
+	@Autowired(required = false)
+	public void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+		this.insertPetType.setIdIncrementer(idIncrementer);
 	}
 
 	@Override
@@ -67,7 +71,7 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
             Map<String, Object> params = new HashMap<>();
             params.put("id", id);
             petType = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM types WHERE id= :id",
+                "SELECT id, name, version FROM types WHERE id= :id",
                 params,
                 BeanPropertyRowMapper.newInstance(PetType.class));
         } catch (EmptyResultDataAccessException ex) {
@@ -76,11 +80,16 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
         return petType;
 	}
 
+	/**
+	 * Shares the "petTypes" cache entry of <code>ClinicService.findAllPetTypes()</code>, so that the pet type lookups
+	 * of {@link JdbcOwnerRepositoryImpl} and {@link JdbcPetRepositoryImpl} do not hit the database on every call.
+	 */
 	@Override
+	@Cacheable(value = "petTypes")
 	public Collection<PetType> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
         return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types",
+            "SELECT id, name, version FROM types",
             params,
             BeanPropertyRowMapper.newInstance(PetType.class));
 	}
@@ -89,11 +98,14 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	public void save(PetType petType) throws DataAccessException {
 		BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(petType);
 		if (petType.isNew()) {
-            Number newKey = this.insertPetType.executeAndReturnKey(parameterSource);
-            petType.setId(newKey.intValue());
+            this.insertPetType.insert(petType, BeanPropertySqlParameterSource::new);
         } else {
-            this.namedParameterJdbcTemplate.update("UPDATE types SET name=:name WHERE id=:id",
-                parameterSource);
+            int updated = this.namedParameterJdbcTemplate.update(
+                "UPDATE types SET name=:name, version=version+1 WHERE id=:id AND version=:version", parameterSource);
+            if (updated == 0) {
+                throw new ObjectOptimisticLockingFailureException(PetType.class, petType.getId());
+            }
+            petType.setVersion(petType.getVersion() + 1);
         }
 	}
 
@@ -101,28 +113,10 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	public void delete(PetType petType) throws DataAccessException {
 		Map<String, Object> pettype_params = new HashMap<>();
 		pettype_params.put("id", petType.getId());
-		List<Pet> pets = new ArrayList<Pet>();
-		pets = this.namedParameterJdbcTemplate.
-    			query("SELECT pets.id, name, birth_date, type_id, owner_id FROM pets WHERE type_id=:id",
-    			pettype_params,
-    			BeanPropertyRowMapper.newInstance(Pet.class));
-		// cascade delete pets
-		for (Pet pet : pets){
-			Map<String, Object> pet_params = new HashMap<>();
-			pet_params.put("id", pet.getId());
-			List<Visit> visits = new ArrayList<Visit>();
-			visits = this.namedParameterJdbcTemplate.query(
-		            "SELECT id, pet_id, visit_date, description FROM visits WHERE pet_id = :id",
-		            pet_params,
-		            BeanPropertyRowMapper.newInstance(Visit.class));
-	        // cascade delete visits
-	        for (Visit visit : visits){
-	        	Map<String, Object> visit_params = new HashMap<>();
-	        	visit_params.put("id", visit.getId());
-	        	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-	        }
-	        this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
-        }
+		// cascade delete visits and pets
+		this.namedParameterJdbcTemplate.update(
+			"DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE type_id=:id)", pettype_params);
+		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE type_id=:id", pettype_params);
         this.namedParameterJdbcTemplate.update("DELETE FROM types WHERE id=:id", pettype_params);
 	}
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.PetType;
+
+/**
+ * {@link RowMapper} implementation mapping a row of a <code>pets</code> query joined with <code>types</code> and
+ * <code>owners</code> to a {@link JdbcPet} whose {@link PetType} and {@link Owner} are populated as well.
+ * <p>
+ * Expects the columns read by {@link JdbcPetRowMapper} plus <code>type_name</code>, <code>first_name</code>,
+ * <code>last_name</code>, <code>address</code>, <code>city</code> and <code>telephone</code>.
+ */
+class JdbcPetWithOwnerRowMapper extends JdbcPetRowMapper {
+
+    @Override
+    public JdbcPet mapRow(ResultSet rs, int rownum) throws SQLException {
+        JdbcPet pet = super.mapRow(rs, rownum);
+        PetType type = new PetType();
+        type.setId(pet.getTypeId());
+        type.setName(rs.getString("type_name"));
+        pet.setType(type);
+        Owner owner = new Owner();
+        owner.setId(pet.getOwnerId());
+        owner.setFirstName(rs.getString("first_name"));
+        owner.setLastName(rs.getString("last_name"));
+        owner.setAddress(rs.getString("address"));
+        owner.setCity(rs.getString("city"));
+        owner.setTelephone(rs.getString("telephone"));
+        pet.setOwner(owner);
+        return pet;
+    }
+}
@@ -29,7 +29,8 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
@@ -46,14 +47,20 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
 	
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 	
-	private SimpleJdbcInsert insertSpecialty;
+	private JdbcEntityInsert insertSpecialty;
 
 	@Autowired
 	public JdbcSpecialtyRepositoryImpl(DataSource dataSource) {
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-		this.insertSpecialty = new SimpleJdbcInsert(dataSource)
-	            .withTableName("specialties")
-	            .usingGeneratedKeyColumns("id");
+		this.insertSpecialty = new JdbcEntityInsert(dataSource, "specialties");
+	}
+
+	/**
+	 * Assigns the ids of new specialties from the given incrementer instead of the identity column.
+	 */
+	@Autowired(required = false)
+	public void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+		this.insertSpecialty.setIdIncrementer(idIncrementer);
 	}
 
 	@Override
@@ -63,7 +70,7 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
             Map<String, Object> params = new HashMap<>();
             params.put("id", id);
             specialty = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM specialties WHERE id= :id",
+                "SELECT id, name, version FROM specialties WHERE id= :id",
                 params,
                 BeanPropertyRowMapper.newInstance(Specialty.class));
         } catch (EmptyResultDataAccessException ex) {
@@ -76,7 +83,7 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
 	public Collection<Specialty> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
         return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM specialties",
+            "SELECT id, name, version FROM specialties",
             params,
             BeanPropertyRowMapper.newInstance(Specialty.class));
 	}
@@ -85,11 +92,14 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
 	public void save(Specialty specialty) throws DataAccessException {
 		BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(specialty);
 		if (specialty.isNew()) {
-            Number newKey = this.insertSpecialty.executeAndReturnKey(parameterSource);
-            specialty.setId(newKey.intValue());
+            this.insertSpecialty.insert(specialty, BeanPropertySqlParameterSource::new);
         } else {
-            this.namedParameterJdbcTemplate.update("UPDATE specialties SET name=:name WHERE id=:id",
-                parameterSource);
+            int updated = this.namedParameterJdbcTemplate.update(
+                "UPDATE specialties SET name=:name, version=version+1 WHERE id=:id AND version=:version", parameterSource);
+            if (updated == 0) {
+                throw new ObjectOptimisticLockingFailureException(Specialty.class, specialty.getId());
+            }
+            specialty.setVersion(specialty.getVersion() + 1);
         }
 
 	}
@@ -17,28 +17,26 @@ package org.springframework.samples.petclinic.repository.jdbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -59,13 +57,23 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 
     private JdbcTemplate jdbcTemplate;
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-	private SimpleJdbcInsert insertVet;
+	private JdbcEntityInsert insertVet;
+	private JdbcTemplate streamingJdbcTemplate;
 
     @Autowired
     public JdbcVetRepositoryImpl(DataSource dataSource, JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
-		this.insertVet = new SimpleJdbcInsert(dataSource).withTableName("vets").usingGeneratedKeyColumns("id");
+		this.insertVet = new JdbcEntityInsert(dataSource, "vets");
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		this.streamingJdbcTemplate = new StreamingJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Assigns the ids of new vets from the given incrementer instead of the identity column.
+     */
+    @Autowired(required = false)
+    public void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+        this.insertVet.setIdIncrementer(idIncrementer);
     }
 
     /**
@@ -73,80 +81,68 @@ public class JdbcVetRepositoryImpl implements VetRepository {
      */
     @Override
     public Collection<Vet> findAll() throws DataAccessException {
-        List<Vet> vets = new ArrayList<>();
-        // Retrieve the list of all vets.
-        vets.addAll(this.jdbcTemplate.query(
-            "SELECT id, first_name, last_name FROM vets ORDER BY last_name,first_name",
-            BeanPropertyRowMapper.newInstance(Vet.class)));
-
-        // Retrieve the list of all possible specialties.
-        final List<Specialty> specialties = this.jdbcTemplate.query(
-            "SELECT id, name FROM specialties",
-            BeanPropertyRowMapper.newInstance(Specialty.class));
-
-        // Build each vet's list of specialties.
-        for (Vet vet : vets) {
-            final List<Integer> vetSpecialtiesIds = this.jdbcTemplate.query(
-                "SELECT specialty_id FROM vet_specialties WHERE vet_id=?",
-                new BeanPropertyRowMapper<Integer>() {
-                    @Override
-                    public Integer mapRow(ResultSet rs, int row) throws SQLException {
-                        return rs.getInt(1);
-                    }
-                },
-                vet.getId());
-            for (int specialtyId : vetSpecialtiesIds) {
-                Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-                vet.addSpecialty(specialty);
-            }
-        }
-        return vets;
+        return this.jdbcTemplate.query(
+            JdbcVetSpecialtyExtractor.SELECT_VETS_WITH_SPECIALTIES + "ORDER BY last_name, first_name, vets.id",
+            new JdbcVetSpecialtyExtractor());
     }
     
 	@Override
-	public Vet findById(int id) throws DataAccessException {
-		Vet vet;
-		try {
-			Map<String, Object> vet_params = new HashMap<>();
-			vet_params.put("id", id);
-			vet = this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name FROM vets WHERE id= :id",
-					vet_params,
-					BeanPropertyRowMapper.newInstance(Vet.class));
+	public void streamAll(Consumer<? super Vet> action) throws DataAccessException {
+		OneToManyRowCallbackHandler<Vet, Specialty> handler = new OneToManyRowCallbackHandler<Vet, Specialty>(
+			new JdbcVetRowMapper(), new JdbcSpecialtyRowMapper(), action) {
 
-			final List<Specialty> specialties = this.namedParameterJdbcTemplate.query(
-					"SELECT id, name FROM specialties", vet_params, BeanPropertyRowMapper.newInstance(Specialty.class));
+			@Override
+			protected Integer mapPrimaryKey(ResultSet rs) throws SQLException {
+				return rs.getInt("vets_id");
+			}
 
-			final List<Integer> vetSpecialtiesIds = this.namedParameterJdbcTemplate.query(
-					"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id",
-					vet_params,
-					new BeanPropertyRowMapper<Integer>() {
-						@Override
-						public Integer mapRow(ResultSet rs, int row) throws SQLException {
-							return rs.getInt(1);
-						}
-					});
-			for (int specialtyId : vetSpecialtiesIds) {
-				Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
+			@Override
+			protected Integer mapForeignKey(ResultSet rs) throws SQLException {
+				if (rs.getObject("vet_specialties_vet_id") == null) {
+					return null;
+				}
+				return rs.getInt("vet_specialties_vet_id");
+			}
+
+			@Override
+			protected void addChild(Vet vet, Specialty specialty) {
 				vet.addSpecialty(specialty);
 			}
+		};
+		this.streamingJdbcTemplate.query(
+			JdbcVetSpecialtyExtractor.SELECT_VETS_WITH_SPECIALTIES + "ORDER BY last_name, first_name, vets.id",
+			handler);
+		handler.finish();
+	}
 
-		} catch (EmptyResultDataAccessException ex) {
+	@Override
+	public Vet findById(int id) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("id", id);
+		List<Vet> vets = this.namedParameterJdbcTemplate.query(
+			JdbcVetSpecialtyExtractor.SELECT_VETS_WITH_SPECIALTIES + "WHERE vets.id = :id",
+			params,
+			new JdbcVetSpecialtyExtractor());
+		if (vets.isEmpty()) {
 			throw new ObjectRetrievalFailureException(Vet.class, id);
 		}
-		return vet;
+		return vets.get(0);
 	}
 
 	@Override
 	public void save(Vet vet) throws DataAccessException {
 		BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(vet);
 		if (vet.isNew()) {
-			Number newKey = this.insertVet.executeAndReturnKey(parameterSource);
-			vet.setId(newKey.intValue());
+			this.insertVet.insert(vet, BeanPropertySqlParameterSource::new);
 			updateVetSpecialties(vet);
 		} else {
-			this.namedParameterJdbcTemplate
-					.update("UPDATE vets SET first_name=:firstName, last_name=:lastName WHERE id=:id", parameterSource);
+			int updated = this.namedParameterJdbcTemplate.update(
+				"UPDATE vets SET first_name=:firstName, last_name=:lastName, version=version+1 WHERE id=:id AND version=:version",
+				parameterSource);
+			if (updated == 0) {
+				throw new ObjectOptimisticLockingFailureException(Vet.class, vet.getId());
+			}
+			vet.setVersion(vet.getVersion() + 1);
 			updateVetSpecialties(vet);
 		}
 	}
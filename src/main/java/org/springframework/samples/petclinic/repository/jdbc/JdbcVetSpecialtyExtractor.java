@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.data.jdbc.core.OneToManyResultSetExtractor;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+
+/**
+ * {@link ResultSetExtractor} implementation mapping the rows of {@link #SELECT_VETS_WITH_SPECIALTIES} to vets with
+ * their specialties, so that vets are loaded in a single round trip whatever their number.
+ */
+public class JdbcVetSpecialtyExtractor extends
+    OneToManyResultSetExtractor<Vet, Specialty, Integer> {
+
+    /**
+     * Select clause joining vets with their specialties; rows of the same vet must be kept together by ordering on
+     * <code>vets.id</code>.
+     */
+    static final String SELECT_VETS_WITH_SPECIALTIES =
+        "SELECT vets.id as vets_id, first_name, last_name, vets.version as vets_version, " +
+            "vet_specialties.vet_id as vet_specialties_vet_id, specialties.id as specialties_id, " +
+            "specialties.name as specialty_name, specialties.version as specialties_version " +
+            "FROM vets LEFT OUTER JOIN vet_specialties ON vets.id = vet_specialties.vet_id " +
+            "LEFT OUTER JOIN specialties ON vet_specialties.specialty_id = specialties.id ";
+
+    public JdbcVetSpecialtyExtractor() {
+        super(new JdbcVetRowMapper(), new JdbcSpecialtyRowMapper());
+    }
+
+    @Override
+    protected Integer mapPrimaryKey(ResultSet rs) throws SQLException {
+        return rs.getInt("vets_id");
+    }
+
+    @Override
+    protected Integer mapForeignKey(ResultSet rs) throws SQLException {
+        if (rs.getObject("vet_specialties_vet_id") == null) {
+            return null;
+        } else {
+            return rs.getInt("vet_specialties_vet_id");
+        }
+    }
+
+    @Override
+    protected void addChild(Vet root, Specialty child) {
+        root.addSpecialty(child);
+    }
+}
@@ -18,28 +18,42 @@ package org.springframework.samples.petclinic.repository.jdbc;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.QueryCriteria;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * A simple JDBC-based implementation of the {@link VisitRepository} interface.
@@ -57,17 +71,31 @@ import java.util.Map;
 @Profile("jdbc")
 public class JdbcVisitRepositoryImpl implements VisitRepository {
 
+    private static final String UPDATE_VISIT_SQL =
+        "UPDATE visits SET visit_date=:visit_date, description=:description, pet_id=:pet_id, version=version+1 " +
+            "WHERE id=:id AND version=:version";
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
-    protected SimpleJdbcInsert insertVisit;
+    private JdbcTemplate streamingJdbcTemplate;
+
+    private JdbcEntityInsert insertVisit;
 
     @Autowired
     public JdbcVisitRepositoryImpl(DataSource dataSource) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
-        this.insertVisit = new SimpleJdbcInsert(dataSource)
-            .withTableName("visits")
-            .usingGeneratedKeyColumns("id");
+        this.streamingJdbcTemplate = new StreamingJdbcTemplate(dataSource);
+
+        this.insertVisit = new JdbcEntityInsert(dataSource, "visits");
+    }
+
+    /**
+     * Assigns the ids of new visits from the given incrementer instead of the identity column.
+     */
+    @Autowired(required = false)
+    public void setIdIncrementer(DataFieldMaxValueIncrementer idIncrementer) {
+        this.insertVisit.setIdIncrementer(idIncrementer);
     }
 
 
@@ -79,7 +107,8 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
             .addValue("id", visit.getId())
             .addValue("visit_date", visit.getDate())
             .addValue("description", visit.getDescription())
-            .addValue("pet_id", visit.getPet().getId());
+            .addValue("pet_id", visit.getPet().getId())
+            .addValue("version", visit.getVersion());
     }
 
     @Override
@@ -126,18 +155,127 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 				params, new JdbcVisitRowMapperExt());
 	}
 
+	@Override
+	public Collection<Visit> findByCriteria(Date from, Date to, Integer petId, Integer ownerId) throws DataAccessException {
+		StringBuilder sql = new StringBuilder(
+			"SELECT visits.id as visit_id, visit_date, description, pets.id as pets_id, pets.name, birth_date, type_id, " +
+				"owner_id, types.name as type_name, first_name, last_name, address, city, telephone " +
+				"FROM visits JOIN pets ON visits.pet_id = pets.id JOIN types ON pets.type_id = types.id " +
+				"JOIN owners ON pets.owner_id = owners.id");
+		QueryCriteria criteria = new QueryCriteria()
+			.and("visit_date >= :from", "from", from)
+			.and("visit_date <= :to", "to", to)
+			.and("visits.pet_id = :petId", "petId", petId)
+			.and("pets.owner_id = :ownerId", "ownerId", ownerId);
+		sql.append(criteria.where()).append(" ORDER BY visit_date, visits.id");
+		JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+		JdbcPetWithOwnerRowMapper petRowMapper = new JdbcPetWithOwnerRowMapper();
+		return this.namedParameterJdbcTemplate.query(sql.toString(), criteria.sqlParameters(), (rs, rowNum) -> {
+			Visit visit = visitRowMapper.mapRow(rs, rowNum);
+			visit.setPet(petRowMapper.mapRow(rs, rowNum));
+			return visit;
+		});
+	}
+
 	@Override
 	public void save(Visit visit) throws DataAccessException {
 		if (visit.isNew()) {
-			Number newKey = this.insertVisit.executeAndReturnKey(createVisitParameterSource(visit));
-			visit.setId(newKey.intValue());
+			this.insertVisit.insert(visit, this::createVisitParameterSource);
 		} else {
-			this.namedParameterJdbcTemplate.update(
-					"UPDATE visits SET visit_date=:visit_date, description=:description, pet_id=:pet_id WHERE id=:id ",
-					createVisitParameterSource(visit));
+			int updated = this.namedParameterJdbcTemplate.update(UPDATE_VISIT_SQL, createVisitParameterSource(visit));
+			if (updated == 0) {
+				throw new ObjectOptimisticLockingFailureException(Visit.class, visit.getId());
+			}
+			visit.setVersion(visit.getVersion() + 1);
 		}
 	}
 
+	/**
+	 * Inserts the new visits with JDBC batches of {@link EntityUtils#WRITE_BATCH_SIZE} statements, reading back the
+	 * single JDBC batch, checking their versions like {@link #save}.
+	 * single JDBC batch.
+	 */
+	@Override
+	public void saveAll(Collection<Visit> visits) throws DataAccessException {
+		List<Visit> newVisits = new ArrayList<>();
+		List<Visit> updatedVisits = new ArrayList<>();
+		List<SqlParameterSource> updates = new ArrayList<>();
+		for (Visit visit : visits) {
+			if (visit.isNew()) {
+				newVisits.add(visit);
+			} else {
+				updatedVisits.add(visit);
+				updates.add(createVisitParameterSource(visit));
+			}
+		}
+		for (int from = 0; from < newVisits.size(); from += EntityUtils.WRITE_BATCH_SIZE) {
+			insertBatch(newVisits.subList(from, Math.min(from + EntityUtils.WRITE_BATCH_SIZE, newVisits.size())));
+		}
+		if (!updates.isEmpty()) {
+			int[] updated = this.namedParameterJdbcTemplate.batchUpdate(UPDATE_VISIT_SQL,
+				updates.toArray(new SqlParameterSource[0]));
+			for (int i = 0; i < updated.length; i++) {
+				if (updated[i] == 0) {
+					throw new ObjectOptimisticLockingFailureException(Visit.class, updatedVisits.get(i).getId());
+				}
+			}
+			for (Visit visit : updatedVisits) {
+				visit.setVersion(visit.getVersion() + 1);
+			}
+		}
+	}
+
+	private void insertBatch(List<Visit> batch) {
+		if (this.insertVisit.isAssigningIds()) {
+			SqlParameterSource[] inserts = new SqlParameterSource[batch.size()];
+			for (int i = 0; i < inserts.length; i++) {
+				Visit visit = batch.get(i);
+				visit.setId(this.insertVisit.nextId());
+				inserts[i] = createVisitParameterSource(visit);
+			}
+			this.namedParameterJdbcTemplate.batchUpdate(
+				"INSERT INTO visits (id, visit_date, description, pet_id) VALUES (:id, :visit_date, :description, :pet_id)", inserts);
+			return;
+		}
+		PreparedStatementCreator insert = con -> con.prepareStatement(
+			"INSERT INTO visits (visit_date, description, pet_id) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+		PreparedStatementCallback<Void> executeBatch = (PreparedStatement ps) -> {
+			for (Visit visit : batch) {
+				StatementCreatorUtils.setParameterValue(ps, 1, SqlTypeValue.TYPE_UNKNOWN, visit.getDate());
+				ps.setString(2, visit.getDescription());
+				ps.setInt(3, visit.getPet().getId());
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			try (ResultSet keys = ps.getGeneratedKeys()) {
+				for (Visit visit : batch) {
+					if (!keys.next()) {
+						throw new DataRetrievalFailureException("Generated keys missing for a batch of " + batch.size() + " visits");
+					}
+					visit.setId(keys.getInt(1));
+				}
+			}
+			return null;
+		};
+		this.namedParameterJdbcTemplate.getJdbcTemplate().execute(insert, executeBatch);
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Visit> action) throws DataAccessException {
+		JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+		JdbcPetWithOwnerRowMapper petRowMapper = new JdbcPetWithOwnerRowMapper();
+		this.streamingJdbcTemplate.query(
+			"SELECT visits.id as visit_id, visit_date, description, pets.id as pets_id, pets.name, birth_date, type_id, " +
+				"owner_id, types.name as type_name, first_name, last_name, address, city, telephone " +
+				"FROM visits JOIN pets ON visits.pet_id = pets.id JOIN types ON pets.type_id = types.id " +
+				"JOIN owners ON pets.owner_id = owners.id",
+			rs -> {
+				Visit visit = visitRowMapper.mapRow(rs, 0);
+				visit.setPet(petRowMapper.mapRow(rs, 0));
+				action.accept(visit);
+			});
+	}
+
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
@@ -165,13 +303,13 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 					new JdbcPetRowMapper());
 			params.put("type_id", pet.getTypeId());
 			petType = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, name FROM types WHERE id= :type_id",
+					"SELECT id, name, version FROM types WHERE id= :type_id",
 					params,
 					BeanPropertyRowMapper.newInstance(PetType.class));
 			pet.setType(petType);
 			params.put("owner_id", pet.getOwnerId());
 			owner = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :owner_id",
+					"SELECT id, first_name, last_name, address, city, telephone, version FROM owners WHERE id= :owner_id",
 					params,
 					BeanPropertyRowMapper.newInstance(Owner.class));
 			pet.setOwner(owner);
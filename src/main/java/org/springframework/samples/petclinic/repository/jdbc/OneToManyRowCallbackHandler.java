@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import org.springframework.data.jdbc.core.OneToManyResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Streaming counterpart of {@link OneToManyResultSetExtractor}: maps rows ordered by the root primary key to root
+ * objects with their children and hands each root to a {@link Consumer} as soon as all of its rows have been read,
+ * instead of collecting the whole result in a list.
+ * <p>
+ * {@link #finish()} must be called once the query has completed to hand over the last root.
+ *
+ * @param <R> the root type
+ * @param <C> the child type
+ */
+abstract class OneToManyRowCallbackHandler<R, C> implements RowCallbackHandler {
+
+    private final RowMapper<R> rootMapper;
+
+    private final RowMapper<C> childMapper;
+
+    private final Consumer<? super R> action;
+
+    private R currentRoot;
+
+    private Integer currentKey;
+
+    private int rowNum;
+
+    OneToManyRowCallbackHandler(RowMapper<R> rootMapper, RowMapper<C> childMapper, Consumer<? super R> action) {
+        this.rootMapper = rootMapper;
+        this.childMapper = childMapper;
+        this.action = action;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        Integer key = mapPrimaryKey(rs);
+        if (!key.equals(this.currentKey)) {
+            finish();
+            this.currentRoot = this.rootMapper.mapRow(rs, this.rowNum);
+            this.currentKey = key;
+        }
+        if (mapForeignKey(rs) != null) {
+            addChild(this.currentRoot, this.childMapper.mapRow(rs, this.rowNum));
+        }
+        this.rowNum++;
+    }
+
+    /**
+     * Hand the root mapped from the last rows read to the consumer, if any.
+     */
+    void finish() {
+        if (this.currentRoot != null) {
+            this.action.accept(this.currentRoot);
+            this.currentRoot = null;
+        }
+    }
+
+    protected abstract Integer mapPrimaryKey(ResultSet rs) throws SQLException;
+
+    protected abstract Integer mapForeignKey(ResultSet rs) throws SQLException;
+
+    protected abstract void addChild(R root, C child);
+
+}
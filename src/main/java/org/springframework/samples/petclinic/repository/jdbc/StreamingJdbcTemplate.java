@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.util.EntityUtils;
+
+/**
+ * {@link JdbcTemplate} for the queries whose rows are handed over one at a time, which fetches them from the database
+ * {@link EntityUtils#STREAM_FETCH_SIZE} at a time instead of reading the whole result before the first row.
+ * <p>
+ * MySQL Connector/J only honours a fetch size when cursor fetching is enabled for the whole connection, so on MySQL
+ * these statements stream their rows instead, with the fetch size of {@link Integer#MIN_VALUE} the driver reserves for
+ * it. The row handlers must then not run other statements on the connection until the result has been read.
+ */
+class StreamingJdbcTemplate extends JdbcTemplate {
+
+    private static final String MYSQL = "MySQL";
+
+    StreamingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+        setFetchSize(EntityUtils.STREAM_FETCH_SIZE);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        if (MYSQL.equals(stmt.getConnection().getMetaData().getDatabaseProductName())) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        }
+    }
+
+}
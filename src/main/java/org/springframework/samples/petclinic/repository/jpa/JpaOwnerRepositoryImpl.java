@@ -15,17 +15,29 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.jpa.QueryHints;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.orm.hibernate5.support.OpenSessionInViewFilter;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.OwnerGraphVersion;
+import org.springframework.samples.petclinic.util.OwnerSearch;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -44,6 +56,9 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
     @PersistenceContext
     private EntityManager em;
 
+    @Value("${petclinic.owner-search.case-insensitive-collation:false}")
+    private boolean caseInsensitiveCollation;
+
 
     /**
      * Important: in the current version of this method, we load Owners with all their Pets and Visits while
@@ -54,18 +69,15 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
      */
     @SuppressWarnings("unchecked")
     public Collection<Owner> findByLastName(String lastName) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName");
+        // the owner graph makes a single query load owners, pets, pet types and visits
+        Query query = withPetsGraph(this.em.createQuery("SELECT DISTINCT owner FROM Owner owner WHERE owner.lastName LIKE :lastName"));
         query.setParameter("lastName", lastName + "%");
         return query.getResultList();
     }
 
     @Override
     public Owner findById(int id) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id");
+        Query query = withPetsGraph(this.em.createQuery("SELECT DISTINCT owner FROM Owner owner WHERE owner.id =:id"));
         query.setParameter("id", id);
         return (Owner) query.getSingleResult();
     }
@@ -84,13 +96,75 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Owner> findAll() throws DataAccessException {
-		Query query = this.em.createQuery("SELECT owner FROM Owner owner");
+		Query query = withPetsGraph(this.em.createQuery("SELECT DISTINCT owner FROM Owner owner"));
         return query.getResultList();
 	}
 
+	@Override
+	public Collection<OwnerSummary> findAllSummaries() throws DataAccessException {
+		return this.em.createQuery(
+			"SELECT NEW org.springframework.samples.petclinic.model.SimpleOwnerSummary(" +
+				"owner.id, owner.firstName, owner.lastName, owner.city, COUNT(pet)) " +
+				"FROM Owner owner LEFT JOIN owner.pets pet " +
+				"GROUP BY owner.id, owner.firstName, owner.lastName, owner.city " +
+				"ORDER BY owner.lastName, owner.firstName, owner.id", OwnerSummary.class)
+			.getResultList();
+	}
+
+	@Override
+	public Collection<OwnerSummary> search(List<String> terms, int limit) {
+		TypedQuery<OwnerSummary> query = this.em.createQuery(
+			"SELECT NEW org.springframework.samples.petclinic.model.SimpleOwnerSummary(" +
+				"owner.id, owner.firstName, owner.lastName, owner.city, COUNT(pet)) " +
+				"FROM Owner owner LEFT JOIN owner.pets pet WHERE " +
+				OwnerSearch.condition(Arrays.asList("owner.firstName", "owner.lastName", "owner.city"), "owner.telephone",
+					terms.size(), this.caseInsensitiveCollation) +
+				" GROUP BY owner.id, owner.firstName, owner.lastName, owner.city " +
+				"ORDER BY owner.lastName, owner.firstName, owner.id", OwnerSummary.class);
+		for (int i = 0; i < terms.size(); i++) {
+			query.setParameter("term" + i, OwnerSearch.likePattern(terms.get(i)));
+		}
+		return query.setMaxResults(limit).getResultList();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Collection<Owner> findPage(int afterId, int limit) throws DataAccessException {
+		// no 'join fetch' here: combined with setMaxResults it would make Hibernate paginate in memory
+		Query query = this.em.createQuery("SELECT owner FROM Owner owner WHERE owner.id > :afterId ORDER BY owner.id");
+		query.setParameter("afterId", afterId);
+		query.setMaxResults(limit);
+		return query.getResultList();
+	}
+
+	/**
+	 * Folds the ids and versions of the owner, its pets, their types and their visits, read by two queries.
+	 */
+	@Override
+	public Long findGraphVersion(int id) throws DataAccessException {
+		return OwnerGraphVersion.find(this.em, id);
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Owner> action) throws DataAccessException {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT owner FROM Owner owner ORDER BY owner.id", Owner.class), action);
+	}
+
 	@Override
 	public void delete(Owner owner) throws DataAccessException {
 		this.em.remove(this.em.contains(owner) ? owner : this.em.merge(owner));
 	}
 
+	/**
+	 * Fetches the pets, pet types and visits of the selected owners in the same query (left outer joins, so owners
+	 * without pets and pets without visits are kept) instead of one query per owner and pet for the eager
+	 * associations. The SQL DISTINCT is skipped since the joined rows differ anyway; Hibernate removes the
+	 * duplicate owners in memory.
+	 */
+	private Query withPetsGraph(Query query) {
+		query.setHint(GraphSemantic.FETCH.getJpaHintName(), this.em.getEntityGraph(Owner.PETS_GRAPH));
+		query.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
+		return query;
+	}
+
 }
@@ -16,7 +16,10 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -26,6 +29,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.PetProjections;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -70,15 +75,36 @@ public class JpaPetRepositoryImpl implements PetRepository {
 		return this.em.createQuery("SELECT pet FROM Pet pet").getResultList();
 	}
 
+	@Override
+	public Collection<Pet> findByCriteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore)
+		throws DataAccessException {
+		return PetProjections.criteria(typeId, ownerId, bornAfter, bornBefore)
+			.createQuery(this.em, "SELECT pet FROM Pet pet", "ORDER BY pet.id", Pet.class)
+			.getResultList();
+	}
+
+	@Override
+	public Collection<Pet> findProjectionsByCriteria(Set<String> properties, Integer typeId, Integer ownerId,
+		Date bornAfter, Date bornBefore) throws DataAccessException {
+		return PetProjections.find(this.em, properties, PetProjections.criteria(typeId, ownerId, bornAfter, bornBefore));
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Pet> action) throws DataAccessException {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT pet FROM Pet pet", Pet.class), action);
+	}
+
 	@Override
 	public void delete(Pet pet) throws DataAccessException {
-		//this.em.remove(this.em.contains(pet) ? pet : this.em.merge(pet));
-		String petId = pet.getId().toString();
-		this.em.createQuery("DELETE FROM Visit visit WHERE pet_id=" + petId).executeUpdate();
-		this.em.createQuery("DELETE FROM Pet pet WHERE id=" + petId).executeUpdate();
-		if (em.contains(pet)) {
-			em.remove(pet);
-		}
+		// bound parameters keep a single query plan cache entry per statement, whatever the pet
+		this.em.flush();
+		this.em.createQuery("DELETE FROM Visit visit WHERE visit.pet.id = :petId")
+			.setParameter("petId", pet.getId())
+			.executeUpdate();
+		this.em.createQuery("DELETE FROM Pet pet WHERE pet.id = :petId")
+			.setParameter("petId", pet.getId())
+			.executeUpdate();
+		this.em.clear();
 	}
 
 }
@@ -19,11 +19,13 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * JPA implementation of the {@link VetRepository} interface.
@@ -53,6 +55,11 @@ public class JpaVetRepositoryImpl implements VetRepository {
 		return this.em.createQuery("SELECT vet FROM Vet vet").getResultList();
 	}
 
+	@Override
+	public void streamAll(Consumer<? super Vet> action) throws DataAccessException {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT vet FROM Vet vet", Vet.class), action);
+	}
+
 	@Override
 	public void save(Vet vet) throws DataAccessException {
         if (vet.getId() == null) {
@@ -16,7 +16,9 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -26,6 +28,8 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.QueryCriteria;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -57,6 +61,11 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     }
 
 
+    @Override
+    public void saveAll(Collection<Visit> visits) {
+        EntityUtils.saveAll(this.em, visits);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<Visit> findByPetId(Integer petId) {
@@ -76,6 +85,22 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
         return this.em.createQuery("SELECT v FROM Visit v").getResultList();
 	}
 
+	@Override
+	public Collection<Visit> findByCriteria(Date from, Date to, Integer petId, Integer ownerId) throws DataAccessException {
+		return new QueryCriteria()
+			.and("visit.date >= :from", "from", from)
+			.and("visit.date <= :to", "to", to)
+			.and("visit.pet.id = :petId", "petId", petId)
+			.and("visit.pet.owner.id = :ownerId", "ownerId", ownerId)
+			.createQuery(this.em, "SELECT visit FROM Visit visit", "ORDER BY visit.date, visit.id", Visit.class)
+			.getResultList();
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Visit> action) throws DataAccessException {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT v FROM Visit v", Visit.class), action);
+	}
+
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
         this.em.remove(this.em.contains(visit) ? visit : this.em.merge(visit));
@@ -16,6 +16,11 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.function.Consumer;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
 
@@ -29,4 +34,11 @@ public interface PetRepositoryOverride {
 	
 	void delete(Pet pet);
 
+	void streamAll(Consumer<? super Pet> action);
+
+	Collection<Pet> findByCriteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore);
+
+	Collection<Pet> findProjectionsByCriteria(Set<String> properties, Integer typeId, Integer ownerId, Date bornAfter,
+		Date bornBefore);
+
 }
@@ -17,11 +17,16 @@ package org.springframework.samples.petclinic.repository.springdatajpa;
 
 import java.util.Collection;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 
 /**
@@ -32,13 +37,32 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
  */
 
 @Profile("spring-data-jpa")
-public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer> {
+public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer>, OwnerRepositoryOverride {
 
+    // the owner graph makes a single query load owners, pets, pet types and visits
     @Override
-    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
+    @EntityGraph(Owner.PETS_GRAPH)
+    @Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.lastName LIKE :lastName%")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
     Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
     @Override
-    @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+    @EntityGraph(Owner.PETS_GRAPH)
+    @Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.id =:id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
     Owner findById(@Param("id") int id);
+
+    @Override
+    @EntityGraph(Owner.PETS_GRAPH)
+    @Query("SELECT DISTINCT owner FROM Owner owner")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    Collection<Owner> findAll();
+
+    // an interface projection: Spring Data maps the aliased columns onto OwnerSummary, no Owner entity is created
+    @Override
+    @Query("SELECT owner.id AS id, owner.firstName AS firstName, owner.lastName AS lastName, owner.city AS city, " +
+        "COUNT(pet) AS petCount FROM Owner owner LEFT JOIN owner.pets pet " +
+        "GROUP BY owner.id, owner.firstName, owner.lastName, owner.city " +
+        "ORDER BY owner.lastName, owner.firstName, owner.id")
+    Collection<OwnerSummary> findAllSummaries();
 }
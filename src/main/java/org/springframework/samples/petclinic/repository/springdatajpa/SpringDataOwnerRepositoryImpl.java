@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.OwnerGraphVersion;
+import org.springframework.samples.petclinic.util.OwnerSearch;
+
+/**
+ * Implementation of the {@link OwnerRepositoryOverride} fragment of {@link SpringDataOwnerRepository}.
+ *
+ */
+
+@Profile("spring-data-jpa")
+public class SpringDataOwnerRepositoryImpl implements OwnerRepositoryOverride {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Value("${petclinic.owner-search.case-insensitive-collation:false}")
+	private boolean caseInsensitiveCollation;
+
+	@Override
+	public Collection<Owner> findPage(int afterId, int limit) {
+		// no 'join fetch' here: combined with setMaxResults it would make Hibernate paginate in memory
+		return this.em.createQuery("SELECT owner FROM Owner owner WHERE owner.id > :afterId ORDER BY owner.id", Owner.class)
+			.setParameter("afterId", afterId)
+			.setMaxResults(limit)
+			.getResultList();
+	}
+
+	@Override
+	public Collection<OwnerSummary> search(List<String> terms, int limit) {
+		TypedQuery<OwnerSummary> query = this.em.createQuery(
+			"SELECT NEW org.springframework.samples.petclinic.model.SimpleOwnerSummary(" +
+				"owner.id, owner.firstName, owner.lastName, owner.city, COUNT(pet)) " +
+				"FROM Owner owner LEFT JOIN owner.pets pet WHERE " +
+				OwnerSearch.condition(Arrays.asList("owner.firstName", "owner.lastName", "owner.city"), "owner.telephone",
+					terms.size(), this.caseInsensitiveCollation) +
+				" GROUP BY owner.id, owner.firstName, owner.lastName, owner.city " +
+				"ORDER BY owner.lastName, owner.firstName, owner.id", OwnerSummary.class);
+		for (int i = 0; i < terms.size(); i++) {
+			query.setParameter("term" + i, OwnerSearch.likePattern(terms.get(i)));
+		}
+		return query.setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public Long findGraphVersion(int id) {
+		return OwnerGraphVersion.find(this.em, id);
+	}
+
+	/**
+	 * Deletes the owner with its pets and their visits in three bulk statements with bound parameters, instead of
+	 * loading and removing each pet and visit through the cascades. The persistence context is flushed before and
+	 * cleared after, as bulk statements bypass it.
+	 */
+	@Override
+	public void delete(Owner owner) {
+		this.em.flush();
+		this.em.createQuery("DELETE FROM Visit visit WHERE visit.pet.id IN " +
+				"(SELECT pet.id FROM Pet pet WHERE pet.owner.id = :ownerId)")
+			.setParameter("ownerId", owner.getId())
+			.executeUpdate();
+		this.em.createQuery("DELETE FROM Pet pet WHERE pet.owner.id = :ownerId")
+			.setParameter("ownerId", owner.getId())
+			.executeUpdate();
+		this.em.createQuery("DELETE FROM Owner owner WHERE owner.id = :ownerId")
+			.setParameter("ownerId", owner.getId())
+			.executeUpdate();
+		this.em.clear();
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Owner> action) {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT owner FROM Owner owner ORDER BY owner.id", Owner.class), action);
+	}
+
+}
@@ -16,11 +16,18 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.function.Consumer;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.PetProjections;
 
 /**
  * @author Vitaliy Fedoriv
@@ -33,14 +40,40 @@ public class SpringDataPetRepositoryImpl implements PetRepositoryOverride {
 	@PersistenceContext
     private EntityManager em;
 
+	/**
+	 * Deletes the pet and its visits with bulk statements whose JPQL does not depend on the pet, so that Hibernate
+	 * compiles them once and serves them from its query plan cache afterwards. As bulk statements bypass the
+	 * persistence context, it is flushed before and cleared after, like a Spring Data
+	 * <code>@Modifying(flushAutomatically = true, clearAutomatically = true)</code> query.
+	 */
 	@Override
 	public void delete(Pet pet) {
-		String petId = pet.getId().toString();
-		this.em.createQuery("DELETE FROM Visit visit WHERE pet_id=" + petId).executeUpdate();
-		this.em.createQuery("DELETE FROM Pet pet WHERE id=" + petId).executeUpdate();
-        if (em.contains(pet)) {
-            em.remove(pet);
-        }
+		this.em.flush();
+		this.em.createQuery("DELETE FROM Visit visit WHERE visit.pet.id = :petId")
+			.setParameter("petId", pet.getId())
+			.executeUpdate();
+		this.em.createQuery("DELETE FROM Pet pet WHERE pet.id = :petId")
+			.setParameter("petId", pet.getId())
+			.executeUpdate();
+		this.em.clear();
+	}
+
+	@Override
+	public Collection<Pet> findByCriteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) {
+		return PetProjections.criteria(typeId, ownerId, bornAfter, bornBefore)
+			.createQuery(this.em, "SELECT pet FROM Pet pet", "ORDER BY pet.id", Pet.class)
+			.getResultList();
+	}
+
+	@Override
+	public Collection<Pet> findProjectionsByCriteria(Set<String> properties, Integer typeId, Integer ownerId,
+		Date bornAfter, Date bornBefore) {
+		return PetProjections.find(this.em, properties, PetProjections.criteria(typeId, ownerId, bornAfter, bornBefore));
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Pet> action) {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT pet FROM Pet pet", Pet.class), action);
 	}
 
 }
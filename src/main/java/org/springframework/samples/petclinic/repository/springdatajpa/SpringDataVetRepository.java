@@ -28,5 +28,5 @@ import org.springframework.samples.petclinic.repository.VetRepository;
  */
 
 @Profile("spring-data-jpa")
-public interface SpringDataVetRepository extends VetRepository, Repository<Vet, Integer> {
+public interface SpringDataVetRepository extends VetRepository, Repository<Vet, Integer>, VetRepositoryOverride {
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.util.EntityUtils;
+
+/**
+ * Implementation of the {@link VetRepositoryOverride} fragment of {@link SpringDataVetRepository}.
+ *
+ */
+
+@Profile("spring-data-jpa")
+public class SpringDataVetRepositoryImpl implements VetRepositoryOverride {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public void streamAll(Consumer<? super Vet> action) {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT vet FROM Vet vet", Vet.class), action);
+	}
+
+}
@@ -16,12 +16,18 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.Consumer;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.QueryCriteria;
 
 /**
  * @author Vitaliy Fedoriv
@@ -36,11 +42,32 @@ public class SpringDataVisitRepositoryImpl implements VisitRepositoryOverride {
 
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
-		String visitId = visit.getId().toString();
-		this.em.createQuery("DELETE FROM Visit visit WHERE id=" + visitId).executeUpdate();
-        if (em.contains(visit)) {
-            em.remove(visit);
-        }
+		this.em.flush();
+		this.em.createQuery("DELETE FROM Visit visit WHERE visit.id = :visitId")
+			.setParameter("visitId", visit.getId())
+			.executeUpdate();
+		this.em.clear();
+	}
+
+	@Override
+	public void saveAll(Collection<Visit> visits) {
+		EntityUtils.saveAll(this.em, visits);
+	}
+
+	@Override
+	public Collection<Visit> findByCriteria(Date from, Date to, Integer petId, Integer ownerId) {
+		return new QueryCriteria()
+			.and("visit.date >= :from", "from", from)
+			.and("visit.date <= :to", "to", to)
+			.and("visit.pet.id = :petId", "petId", petId)
+			.and("visit.pet.owner.id = :ownerId", "ownerId", ownerId)
+			.createQuery(this.em, "SELECT visit FROM Visit visit", "ORDER BY visit.date, visit.id", Visit.class)
+			.getResultList();
+	}
+
+	@Override
+	public void streamAll(Consumer<? super Visit> action) {
+		EntityUtils.scroll(this.em, this.em.createQuery("SELECT v FROM Visit v", Visit.class), action);
 	}
 
 
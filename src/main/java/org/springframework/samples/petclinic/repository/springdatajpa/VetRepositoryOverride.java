@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.function.Consumer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Vet;
+
+/**
+ * Vet queries which can not be expressed as Spring Data query methods.
+ *
+ */
+
+@Profile("spring-data-jpa")
+public interface VetRepositoryOverride {
+
+	void streamAll(Consumer<? super Vet> action);
+
+}
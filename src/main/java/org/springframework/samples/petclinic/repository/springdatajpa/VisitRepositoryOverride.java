@@ -16,6 +16,10 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.Consumer;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Visit;
 
@@ -29,4 +33,10 @@ public interface VisitRepositoryOverride {
 	
 	void delete(Visit visit);
 
+	void saveAll(Collection<Visit> visits);
+
+	void streamAll(Consumer<? super Visit> action);
+
+	Collection<Visit> findByCriteria(Date from, Date to, Integer petId, Integer ownerId);
+
 }
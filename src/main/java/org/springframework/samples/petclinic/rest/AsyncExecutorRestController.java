@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.AsyncExecutorMonitor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Thread and queue counts of the executor of the asynchronous endpoints, rejected calls, and percentiles, in
+ * nanoseconds, of the time calls wait in the queue and of the time they run.
+ */
+
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api/asyncexecutor")
+public class AsyncExecutorRestController {
+
+	@Autowired
+	private AsyncExecutorMonitor asyncExecutorMonitor;
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Map<String, Object>> getAsyncExecutorStatistics(){
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("active", this.asyncExecutorMonitor.getActiveCount());
+		statistics.put("poolSize", this.asyncExecutorMonitor.getPoolSize());
+		statistics.put("largestPoolSize", this.asyncExecutorMonitor.getLargestPoolSize());
+		statistics.put("maxPoolSize", this.asyncExecutorMonitor.getMaxPoolSize());
+		statistics.put("queued", this.asyncExecutorMonitor.getQueueSize());
+		statistics.put("queueRemainingCapacity", this.asyncExecutorMonitor.getQueueRemainingCapacity());
+		statistics.put("completed", this.asyncExecutorMonitor.getCompletedCount());
+		statistics.put("rejected", this.asyncExecutorMonitor.getRejectedCount());
+		statistics.put("queueTime", this.asyncExecutorMonitor.getQueueTime().getSummary());
+		statistics.put("executionTime", this.asyncExecutorMonitor.getExecutionTime().getSummary());
+		return new ResponseEntity<Map<String, Object>>(statistics, HttpStatus.OK);
+	}
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.DELETE, produces = "application/json")
+	public ResponseEntity<Void> resetAsyncExecutorStatistics(){
+		this.asyncExecutorMonitor.reset();
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+
+}
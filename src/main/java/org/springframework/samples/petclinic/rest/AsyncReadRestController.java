@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.rest;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.AsyncClinicService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Asynchronous variants of the main read endpoints, under <code>/api/async</code> instead of <code>/api</code>.
+ * <p>
+ * The clinic service calls run on the bounded executor of the {@link AsyncClinicService}, so the request thread is
+ * released while they wait for the database. When the executor is saturated the calls are rejected with
+ * <code>503 Service Unavailable</code> (see <code>petclinic.async.rejection-policy</code>), and calls still running
+ * after <code>spring.mvc.async.request-timeout</code> are answered the same way and cancelled, so that they do not keep
+ * an executor thread and a database connection busy for a response nobody waits for.
+ */
+
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api/async")
+public class AsyncReadRestController {
+
+	@Autowired
+	private AsyncClinicService asyncClinicService;
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/owners", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Collection<Owner>>> getOwners(){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findAllOwners()));
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/owners/*/lastname/{lastName}", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Collection<Owner>>> getOwnersList(@PathVariable("lastName") String ownerLastName){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findOwnerByLastName(ownerLastName)));
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/owners/summaries", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Collection<OwnerSummary>>> getOwnerSummaries(){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findAllOwnerSummaries()));
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/owners/{ownerId}", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Owner>> getOwner(@PathVariable("ownerId") int ownerId){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findOwnerById(ownerId)));
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/pets/{petId}", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Pet>> getPet(@PathVariable("petId") int petId){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findPetById(petId)));
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/visits/{visitId}", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Visit>> getVisit(@PathVariable("visitId") int visitId){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findVisitById(visitId)));
+	}
+
+    @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
+	@RequestMapping(value = "/vets", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Collection<Vet>>> getAllVets(){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findAllVets()));
+	}
+
+    @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
+	@RequestMapping(value = "/vets/{vetId}", method = RequestMethod.GET, produces = "application/json")
+	public DeferredResult<ResponseEntity<Vet>> getVet(@PathVariable("vetId") int vetId){
+		return deferred(this.asyncClinicService.call(clinicService -> clinicService.findVetById(vetId)));
+	}
+
+	/**
+	 * Adapts the given call to a deferred result, which cancels the call when the request times out.
+	 */
+	private static <T> DeferredResult<ResponseEntity<T>> deferred(CompletableFuture<T> call) {
+		DeferredResult<ResponseEntity<T>> result = new DeferredResult<ResponseEntity<T>>();
+		result.onTimeout(() -> call.cancel(true));
+		call.whenComplete((body, ex) -> {
+			if (ex == null) {
+				result.setResult(found(body));
+			} else if (!call.isCancelled()) {
+				// a call cancelled on timeout is answered by the timeout handling
+				result.setErrorResult(ex);
+			}
+		});
+		return result;
+	}
+
+	private static <T> ResponseEntity<T> found(T body) {
+		if (body == null || (body instanceof Collection && ((Collection<?>) body).isEmpty())) {
+			return new ResponseEntity<T>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<T>(body, HttpStatus.OK);
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Hit and miss statistics of the Caffeine backed reference data caches.
+ */
+
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api/caches")
+public class CacheRestController {
+
+	@Autowired
+	private CacheManager cacheManager;
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Collection<Map<String, Object>>> getCacheStatistics(){
+		Collection<Map<String, Object>> statistics = new ArrayList<Map<String, Object>>();
+		for (String name : this.cacheManager.getCacheNames()) {
+			Cache cache = this.cacheManager.getCache(name);
+			if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache) {
+				com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+					(com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+				CacheStats stats = nativeCache.stats();
+				Map<String, Object> cacheStatistics = new LinkedHashMap<String, Object>();
+				cacheStatistics.put("name", name);
+				cacheStatistics.put("size", nativeCache.estimatedSize());
+				cacheStatistics.put("hitCount", stats.hitCount());
+				cacheStatistics.put("missCount", stats.missCount());
+				cacheStatistics.put("hitRate", stats.hitRate());
+				cacheStatistics.put("evictionCount", stats.evictionCount());
+				statistics.add(cacheStatistics);
+			}
+		}
+		if (statistics.isEmpty()) {
+			return new ResponseEntity<Collection<Map<String, Object>>>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Collection<Map<String, Object>>>(statistics, HttpStatus.OK);
+	}
+
+}
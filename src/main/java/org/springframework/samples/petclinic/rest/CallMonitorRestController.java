@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.CallMonitoringAspect;
+import org.springframework.samples.petclinic.util.LatencyHistogram;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Call counts and call time percentiles, in nanoseconds, of each repository method.
+ */
+
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api/callmonitor")
+public class CallMonitorRestController {
+
+	@Autowired
+	private CallMonitoringAspect callMonitor;
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Collection<Map<String, Object>>> getCallStatistics(){
+		Collection<Map<String, Object>> statistics = new ArrayList<Map<String, Object>>();
+		for (Map.Entry<String, LatencyHistogram> entry : this.callMonitor.getHistograms().entrySet()) {
+			Map<String, Object> methodStatistics = new LinkedHashMap<String, Object>();
+			methodStatistics.put("method", entry.getKey());
+			methodStatistics.putAll(entry.getValue().getSummary());
+			statistics.add(methodStatistics);
+		}
+		if (statistics.isEmpty()) {
+			return new ResponseEntity<Collection<Map<String, Object>>>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Collection<Map<String, Object>>>(statistics, HttpStatus.OK);
+	}
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.DELETE, produces = "application/json")
+	public ResponseEntity<Void> resetCallStatistics(){
+		this.callMonitor.reset();
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+
+}
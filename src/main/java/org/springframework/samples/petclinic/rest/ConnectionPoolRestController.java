@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.util.ConnectionPoolMonitor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Connection counts of each connection pool, and percentiles, in nanoseconds, of the time waited for a connection
+ * and of the time connections are held. Pending threads waiting for a connection are a sign of pool saturation.
+ */
+
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api/connectionpool")
+public class ConnectionPoolRestController {
+
+	@Autowired
+	private ConnectionPoolMonitor connectionPoolMonitor;
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Collection<Map<String, Object>>> getConnectionPoolStatistics(){
+		Collection<Map<String, Object>> statistics = new ArrayList<Map<String, Object>>();
+		for (Map.Entry<String, ConnectionPoolMonitor.PoolMetrics> entry : this.connectionPoolMonitor.getPools().entrySet()) {
+			ConnectionPoolMonitor.PoolMetrics metrics = entry.getValue();
+			PoolStats poolStats = metrics.getPoolStats();
+			Map<String, Object> poolStatistics = new LinkedHashMap<String, Object>();
+			poolStatistics.put("pool", entry.getKey());
+			poolStatistics.put("active", poolStats.getActiveConnections());
+			poolStatistics.put("idle", poolStats.getIdleConnections());
+			poolStatistics.put("pending", poolStats.getPendingThreads());
+			poolStatistics.put("total", poolStats.getTotalConnections());
+			poolStatistics.put("max", poolStats.getMaxConnections());
+			poolStatistics.put("min", poolStats.getMinConnections());
+			poolStatistics.put("timeouts", metrics.getTimeouts());
+			poolStatistics.put("acquire", metrics.getAcquireTime().getSummary());
+			poolStatistics.put("usage", metrics.getUsageTime().getSummary());
+			poolStatistics.put("creation", metrics.getCreationTime().getSummary());
+			statistics.add(poolStatistics);
+		}
+		if (statistics.isEmpty()) {
+			return new ResponseEntity<Collection<Map<String, Object>>>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Collection<Map<String, Object>>>(statistics, HttpStatus.OK);
+	}
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.DELETE, produces = "application/json")
+	public ResponseEntity<Void> resetConnectionPoolStatistics(){
+		this.connectionPoolMonitor.reset();
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+
+}
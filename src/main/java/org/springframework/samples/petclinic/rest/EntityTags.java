@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Strong entity tags of the REST resources, derived from the versions of the entities they represent.
+ * <p>
+ * <code>If-None-Match</code> is evaluated by {@link org.springframework.web.context.request.WebRequest#checkNotModified},
+ * which does not support <code>If-Match</code>; {@link #matches} covers the latter for the PUT endpoints.
+ */
+final class EntityTags {
+
+	private EntityTags() {
+	}
+
+	static String of(long version) {
+		return "\"" + Long.toHexString(version) + "\"";
+	}
+
+	static String of(Collection<? extends BaseEntity> entities) {
+		return of(EntityUtils.versionOf(entities));
+	}
+
+	/**
+	 * The tag of vets as serialized, i.e. including their specialties.
+	 */
+	static String ofVets(Collection<Vet> vets) {
+		List<BaseEntity> entities = new ArrayList<BaseEntity>();
+		for (Vet vet : vets) {
+			entities.add(vet);
+			entities.addAll(vet.getSpecialties());
+		}
+		return of(entities);
+	}
+
+	/**
+	 * Whether the given <code>If-Match</code> header, if any, matches the current tag. Weak tags never match.
+	 */
+	static boolean matches(String ifMatch, String etag) {
+		if (ifMatch == null) {
+			return true;
+		}
+		for (String tag : StringUtils.commaDelimitedListToStringArray(ifMatch)) {
+			tag = tag.trim();
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
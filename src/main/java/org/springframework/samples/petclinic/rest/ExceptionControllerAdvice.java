@@ -16,9 +16,14 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -33,6 +38,26 @@ public class ExceptionControllerAdvice {
 
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<String> exception(Exception e) {
+		return ResponseEntity.badRequest().body(toJson(e));
+	}
+
+	/**
+	 * Updates of entities changed meanwhile by another request.
+	 */
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<String> conflict(Exception e) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(toJson(e));
+	}
+
+	/**
+	 * Calls of the asynchronous endpoints rejected by their saturated executor, or timed out: worth retrying later.
+	 */
+	@ExceptionHandler({TaskRejectedException.class, AsyncRequestTimeoutException.class})
+	public ResponseEntity<String> unavailable(Exception e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(toJson(e));
+	}
+
+	private static String toJson(Exception e) {
 		ObjectMapper mapper = new ObjectMapper();
 		ErrorInfo errorInfo = new ErrorInfo(e);
 		String respJSONstring = "{}";
@@ -41,10 +66,10 @@ public class ExceptionControllerAdvice {
 		} catch (JsonProcessingException e1) {
 			e1.printStackTrace();
 		}
-		return ResponseEntity.badRequest().body(respJSONstring);
+		return respJSONstring;
 	}
 	
-	private class ErrorInfo {
+	private static class ErrorInfo {
 	    public final String className;
 	    public final String exMessage;
 
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * The <code>yyyy/MM/dd</code> date format shared by the custom Jackson serializers and deserializers.
+ * <p>
+ * {@link DateTimeFormatter} instances are immutable and thread-safe, so a single instance serves all calls instead
+ * of allocating a <code>SimpleDateFormat</code> per entity. Dates are converted in the default time zone, as
+ * <code>SimpleDateFormat</code> did.
+ */
+final class JacksonCustomDateFormat {
+
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+	// single digit months and days are accepted when parsing, as they were by SimpleDateFormat
+	private static final DateTimeFormatter PARSER = DateTimeFormatter.ofPattern("yyyy/M/d");
+
+	private JacksonCustomDateFormat() {
+	}
+
+	static String format(Date date) {
+		// not date.toInstant(): java.sql.Date, as loaded by JPA, does not support it
+		return FORMATTER.format(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()));
+	}
+
+	static Date parse(String text) throws IOException {
+		if (text == null) {
+			throw new IOException("Cannot parse date - value is null");
+		}
+		try {
+			return Date.from(LocalDate.parse(text, PARSER).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		} catch (DateTimeParseException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
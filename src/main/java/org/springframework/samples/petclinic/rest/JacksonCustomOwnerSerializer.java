@@ -17,8 +17,6 @@
 package org.springframework.samples.petclinic.rest;
 
 import java.io.IOException;
-import java.text.Format;
-import java.text.SimpleDateFormat;
 
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
@@ -46,7 +44,6 @@ public class JacksonCustomOwnerSerializer extends StdSerializer<Owner> {
 
 	@Override
 	public void serialize(Owner owner, JsonGenerator jgen, SerializerProvider provider) throws IOException {
-		Format formatter = new SimpleDateFormat("yyyy/MM/dd");
 		jgen.writeStartObject();
 		if (owner.getId() == null) {
 			jgen.writeNullField("id");
@@ -69,7 +66,7 @@ public class JacksonCustomOwnerSerializer extends StdSerializer<Owner> {
 				jgen.writeNumberField("id", pet.getId());
 			}
 			jgen.writeStringField("name", pet.getName());
-			jgen.writeStringField("birthDate", formatter.format(pet.getBirthDate()));
+			jgen.writeStringField("birthDate", JacksonCustomDateFormat.format(pet.getBirthDate()));
 
 			PetType petType = pet.getType();
 			jgen.writeObjectFieldStart("type");
@@ -91,7 +88,7 @@ public class JacksonCustomOwnerSerializer extends StdSerializer<Owner> {
 				} else {
 					jgen.writeNumberField("id", visit.getId());
 				}
-				jgen.writeStringField("date", formatter.format(visit.getDate()));
+				jgen.writeStringField("date", JacksonCustomDateFormat.format(visit.getDate()));
 				jgen.writeStringField("description", visit.getDescription());
 				jgen.writeNumberField("pet", visit.getPet().getId());
 				jgen.writeEndObject(); // visit
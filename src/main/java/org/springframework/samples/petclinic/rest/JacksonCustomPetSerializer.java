@@ -17,8 +17,6 @@
 package org.springframework.samples.petclinic.rest;
 
 import java.io.IOException;
-import java.text.Format;
-import java.text.SimpleDateFormat;
 
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
@@ -46,7 +44,6 @@ public class JacksonCustomPetSerializer extends StdSerializer<Pet> {
 
 	@Override
 	public void serialize(Pet pet, JsonGenerator jgen, SerializerProvider provider) throws IOException {
-		Format formatter = new SimpleDateFormat("yyyy/MM/dd");
 		jgen.writeStartObject(); // pet
 		if (pet.getId() == null) {
 			jgen.writeNullField("id");
@@ -54,29 +51,38 @@ public class JacksonCustomPetSerializer extends StdSerializer<Pet> {
 			jgen.writeNumberField("id", pet.getId());
 		}
 		jgen.writeStringField("name", pet.getName());
-		jgen.writeStringField("birthDate", formatter.format(pet.getBirthDate()));
+		jgen.writeStringField("birthDate", JacksonCustomDateFormat.format(pet.getBirthDate()));
 
+		// type and owner are left out of the projections of pets which do not request them
 		PetType petType = pet.getType();
-		jgen.writeObjectFieldStart("type");
-		jgen.writeNumberField("id", petType.getId());
-		jgen.writeStringField("name", petType.getName());
-		jgen.writeEndObject(); // type
+		if (petType == null) {
+			jgen.writeNullField("type");
+		} else {
+			jgen.writeObjectFieldStart("type");
+			jgen.writeNumberField("id", petType.getId());
+			jgen.writeStringField("name", petType.getName());
+			jgen.writeEndObject(); // type
+		}
 
 		Owner owner = pet.getOwner();
-		jgen.writeObjectFieldStart("owner");
-		jgen.writeNumberField("id", owner.getId());
-		jgen.writeStringField("firstName", owner.getFirstName());
-		jgen.writeStringField("lastName", owner.getLastName());
-		jgen.writeStringField("address", owner.getAddress());
-		jgen.writeStringField("city", owner.getCity());
-		jgen.writeStringField("telephone", owner.getTelephone());
-		jgen.writeEndObject(); // owner
+		if (owner == null) {
+			jgen.writeNullField("owner");
+		} else {
+			jgen.writeObjectFieldStart("owner");
+			jgen.writeNumberField("id", owner.getId());
+			jgen.writeStringField("firstName", owner.getFirstName());
+			jgen.writeStringField("lastName", owner.getLastName());
+			jgen.writeStringField("address", owner.getAddress());
+			jgen.writeStringField("city", owner.getCity());
+			jgen.writeStringField("telephone", owner.getTelephone());
+			jgen.writeEndObject(); // owner
+		}
 		// write visits array
 		jgen.writeArrayFieldStart("visits");
 		for (Visit visit : pet.getVisits()) {
 			jgen.writeStartObject(); // visit
 			jgen.writeNumberField("id", visit.getId());
-			jgen.writeStringField("date", formatter.format(visit.getDate()));
+			jgen.writeStringField("date", JacksonCustomDateFormat.format(visit.getDate()));
 			jgen.writeStringField("description", visit.getDescription());
 			jgen.writeNumberField("pet", visit.getPet().getId());
 			jgen.writeEndObject(); // visit
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * {@link StreamingResponseBody} writing one JSON document per line (newline delimited JSON).
+ * <p>
+ * Entities are serialized as the source hands them over, so neither the full collection nor the full
+ * response body is ever held in memory.
+ *
+ * @param <T> the type of the streamed entities
+ */
+public class NdjsonStreamingResponseBody<T> implements StreamingResponseBody {
+
+	public static final String MEDIA_TYPE = "application/x-ndjson";
+
+	private final ObjectWriter writer;
+
+	private final Consumer<Consumer<? super T>> source;
+
+	/**
+	 * @param mapper the mapper used to serialize each entity
+	 * @param source callback feeding every entity to the consumer it is given, typically a
+	 *               <code>ClinicService.streamAllXxx</code> method reference
+	 */
+	public NdjsonStreamingResponseBody(ObjectMapper mapper, Consumer<Consumer<? super T>> source) {
+		this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.source = source;
+	}
+
+	@Override
+	public void writeTo(OutputStream outputStream) throws IOException {
+		try (JsonGenerator generator = this.writer.getFactory().createGenerator(outputStream)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// each document is terminated by its own newline instead of the default space separator
+			generator.setRootValueSeparator(null);
+			try {
+				this.source.accept(entity -> {
+					try {
+						this.writer.writeValue(generator, entity);
+						generator.writeRaw('\n');
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+			} catch (UncheckedIOException ex) {
+				throw ex.getCause();
+			}
+		}
+	}
+
+}
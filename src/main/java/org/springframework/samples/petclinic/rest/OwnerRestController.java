@@ -27,30 +27,49 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.RetryableTransaction;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * @author Vitaliy Fedoriv
  *
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, etag")
 @RequestMapping("/api/owners")
 public class OwnerRestController {
 
+	private static final int DEFAULT_PAGE_SIZE = 100;
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+	private static final int MAX_SEARCH_LIMIT = 100;
+
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/*/lastname/{lastName}", method = RequestMethod.GET, produces = "application/json")
 	public ResponseEntity<Collection<Owner>> getOwnersList(@PathVariable("lastName") String ownerLastName) {
@@ -66,17 +85,73 @@ public class OwnerRestController {
 
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Owner>> getOwners() {
-		Collection<Owner> owners = this.clinicService.findAllOwners();
+	public ResponseEntity<Collection<Owner>> getOwners(@RequestParam(value = "after", required = false) Integer after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		Collection<Owner> owners;
+		if (after == null && limit == null) {
+			owners = this.clinicService.findAllOwners();
+		} else {
+			int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+			if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+				return new ResponseEntity<Collection<Owner>>(HttpStatus.BAD_REQUEST);
+			}
+			owners = this.clinicService.findOwnersPage(after == null ? 0 : after, pageSize);
+		}
 		if (owners.isEmpty()) {
 			return new ResponseEntity<Collection<Owner>>(HttpStatus.NOT_FOUND);
 		}
 		return new ResponseEntity<Collection<Owner>>(owners, HttpStatus.OK);
 	}
 
+	/**
+	 * Id, name, city and number of pets of every owner, read without loading pets or visits.
+	 */
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/summaries", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Collection<OwnerSummary>> getOwnerSummaries() {
+		Collection<OwnerSummary> summaries = this.clinicService.findAllOwnerSummaries();
+		if (summaries.isEmpty()) {
+			return new ResponseEntity<Collection<OwnerSummary>>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Collection<OwnerSummary>>(summaries, HttpStatus.OK);
+	}
+
+	/**
+	 * Summaries of the owners matching every whitespace separated term of the query, as a prefix of their first
+	 * name, last name, city or telephone, ordered by last and first name.
+	 */
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/search", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Collection<OwnerSummary>> searchOwners(@RequestParam(value = "q") String query,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		int maxResults = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+		if (query.trim().isEmpty() || maxResults < 1 || maxResults > MAX_SEARCH_LIMIT) {
+			return new ResponseEntity<Collection<OwnerSummary>>(HttpStatus.BAD_REQUEST);
+		}
+		Collection<OwnerSummary> summaries = this.clinicService.searchOwners(query, maxResults);
+		if (summaries.isEmpty()) {
+			return new ResponseEntity<Collection<OwnerSummary>>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Collection<OwnerSummary>>(summaries, HttpStatus.OK);
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/stream", method = RequestMethod.GET, produces = NdjsonStreamingResponseBody.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> streamOwners(){
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(NdjsonStreamingResponseBody.MEDIA_TYPE));
+		return new ResponseEntity<StreamingResponseBody>(
+			new NdjsonStreamingResponseBody<Owner>(this.objectMapper, this.clinicService::streamAllOwners), headers, HttpStatus.OK);
+	}
+
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{ownerId}", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Owner> getOwner(@PathVariable("ownerId") int ownerId) {
+	public ResponseEntity<Owner> getOwner(@PathVariable("ownerId") int ownerId, WebRequest request) {
+		// a matching If-None-Match is answered from the version of the owner graph, without loading it
+		Long version = this.clinicService.findOwnerGraphVersion(ownerId);
+		if (version != null && request.checkNotModified(EntityTags.of(version))) {
+			return null;
+		}
 		Owner owner = null;
 		owner = this.clinicService.findOwnerById(ownerId);
 		if (owner == null) {
@@ -104,7 +179,8 @@ public class OwnerRestController {
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{ownerId}", method = RequestMethod.PUT, produces = "application/json")
 	public ResponseEntity<Owner> updateOwner(@PathVariable("ownerId") int ownerId, @RequestBody @Valid Owner owner,
-			BindingResult bindingResult, UriComponentsBuilder ucBuilder) {
+			BindingResult bindingResult, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			UriComponentsBuilder ucBuilder) {
 	    boolean bodyIdMatchesPathId = owner.getId() == null || ownerId == owner.getId();
 		if (bindingResult.hasErrors() || !bodyIdMatchesPathId) {
             BindingErrorsResponse errors = new BindingErrorsResponse(ownerId, owner.getId());
@@ -117,6 +193,9 @@ public class OwnerRestController {
 		if (currentOwner == null) {
 			return new ResponseEntity<Owner>(HttpStatus.NOT_FOUND);
 		}
+		if (ifMatch != null && !EntityTags.matches(ifMatch, EntityTags.of(this.clinicService.findOwnerGraphVersion(ownerId)))) {
+			return new ResponseEntity<Owner>(HttpStatus.PRECONDITION_FAILED);
+		}
 		currentOwner.setAddress(owner.getAddress());
 		currentOwner.setCity(owner.getCity());
 		currentOwner.setFirstName(owner.getFirstName());
@@ -129,6 +208,7 @@ public class OwnerRestController {
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{ownerId}", method = RequestMethod.DELETE, produces = "application/json")
 	@Transactional
+	@RetryableTransaction
 	public ResponseEntity<Void> deleteOwner(@PathVariable("ownerId") int ownerId) {
 		Owner owner = this.clinicService.findOwnerById(ownerId);
 		if (owner == null) {
@@ -16,12 +16,18 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -29,6 +35,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.RetryableTransaction;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -36,9 +43,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 /**
  * @author Vitaliy Fedoriv
  *
@@ -52,6 +64,13 @@ public class PetRestController {
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	// top level properties written by JacksonCustomPetSerializer
+	private static final Set<String> PET_FIELDS = new LinkedHashSet<String>(
+		Arrays.asList("id", "name", "birthDate", "type", "owner", "visits"));
+
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{petId}", method = RequestMethod.GET, produces = "application/json")
 	public ResponseEntity<Pet> getPet(@PathVariable("petId") int petId){
@@ -64,14 +83,74 @@ public class PetRestController {
 
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Pet>> getPets(){
-		Collection<Pet> pets = this.clinicService.findAllPets();
+	public ResponseEntity<Collection<Pet>> getPets(
+			@RequestParam(value = "typeId", required = false) Integer typeId,
+			@RequestParam(value = "ownerId", required = false) Integer ownerId,
+			@RequestParam(value = "bornAfter", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") Date bornAfter,
+			@RequestParam(value = "bornBefore", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") Date bornBefore){
+		Collection<Pet> pets = findPets(typeId, ownerId, bornAfter, bornBefore);
 		if(pets.isEmpty()){
 			return new ResponseEntity<Collection<Pet>>(HttpStatus.NOT_FOUND);
 		}
 		return new ResponseEntity<Collection<Pet>>(pets, HttpStatus.OK);
 	}
 
+	/**
+	 * Sparse fieldsets: only the requested top level properties of each pet, e.g. <code>fields=id,name,type</code>,
+	 * are read and sent. Accepts the same filters as {@link #getPets}.
+	 */
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "fields", produces = "application/json")
+	public ResponseEntity<Collection<ObjectNode>> getPetProjections(
+			@RequestParam("fields") Set<String> fields,
+			@RequestParam(value = "typeId", required = false) Integer typeId,
+			@RequestParam(value = "ownerId", required = false) Integer ownerId,
+			@RequestParam(value = "bornAfter", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") Date bornAfter,
+			@RequestParam(value = "bornBefore", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") Date bornBefore){
+		Set<String> unknownFields = new LinkedHashSet<String>(fields);
+		unknownFields.removeAll(PET_FIELDS);
+		if (!unknownFields.isEmpty()) {
+			BindingErrorsResponse errors = new BindingErrorsResponse();
+			for (String field : unknownFields) {
+				BindingErrorsResponse.BindingError error = new BindingErrorsResponse.BindingError();
+				error.setObjectName("pet");
+				error.setFieldName("fields");
+				error.setFieldValue(field);
+				error.setErrorMessage("unknown field, expected one of " + PET_FIELDS);
+				errors.addError(error);
+			}
+			HttpHeaders headers = new HttpHeaders();
+			headers.add("errors", errors.toJSON());
+			return new ResponseEntity<Collection<ObjectNode>>(headers, HttpStatus.BAD_REQUEST);
+		}
+		Collection<Pet> pets = this.clinicService.findPetProjections(fields, typeId, ownerId, bornAfter, bornBefore);
+		if(pets.isEmpty()){
+			return new ResponseEntity<Collection<ObjectNode>>(HttpStatus.NOT_FOUND);
+		}
+		Collection<ObjectNode> projections = new ArrayList<ObjectNode>(pets.size());
+		for (Pet pet : pets) {
+			ObjectNode projection = this.objectMapper.valueToTree(pet);
+			projections.add(projection.retain(fields));
+		}
+		return new ResponseEntity<Collection<ObjectNode>>(projections, HttpStatus.OK);
+	}
+
+	private Collection<Pet> findPets(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) {
+		if (typeId == null && ownerId == null && bornAfter == null && bornBefore == null) {
+			return this.clinicService.findAllPets();
+		}
+		return this.clinicService.findPets(typeId, ownerId, bornAfter, bornBefore);
+	}
+
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/stream", method = RequestMethod.GET, produces = NdjsonStreamingResponseBody.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> streamPets(){
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(NdjsonStreamingResponseBody.MEDIA_TYPE));
+		return new ResponseEntity<StreamingResponseBody>(
+			new NdjsonStreamingResponseBody<Pet>(this.objectMapper, this.clinicService::streamAllPets), headers, HttpStatus.OK);
+	}
+
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/pettypes", method = RequestMethod.GET, produces = "application/json")
 	public ResponseEntity<Collection<PetType>> getPetTypes(){
@@ -118,6 +197,7 @@ public class PetRestController {
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{petId}", method = RequestMethod.DELETE, produces = "application/json")
 	@Transactional
+	@RetryableTransaction
 	public ResponseEntity<Void> deletePet(@PathVariable("petId") int petId){
 		Pet pet = this.clinicService.findPetById(petId);
 		if(pet == null){
@@ -18,6 +18,7 @@ package org.springframework.samples.petclinic.rest;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
@@ -29,18 +30,21 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.RetryableTransaction;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, etag")
 @RequestMapping("api/pettypes")
 public class PetTypeRestController {
 
@@ -49,22 +53,28 @@ public class PetTypeRestController {
 
     @PreAuthorize( "hasAnyRole(@roles.OWNER_ADMIN, @roles.VET_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<PetType>> getAllPetTypes(){
+	public ResponseEntity<Collection<PetType>> getAllPetTypes(WebRequest request){
 		Collection<PetType> petTypes = new ArrayList<PetType>();
 		petTypes.addAll(this.clinicService.findAllPetTypes());
 		if (petTypes.isEmpty()){
 			return new ResponseEntity<Collection<PetType>>(HttpStatus.NOT_FOUND);
 		}
+		if (request.checkNotModified(EntityTags.of(petTypes))) {
+			return null;
+		}
 		return new ResponseEntity<Collection<PetType>>(petTypes, HttpStatus.OK);
 	}
 
     @PreAuthorize( "hasAnyRole(@roles.OWNER_ADMIN, @roles.VET_ADMIN)" )
 	@RequestMapping(value = "/{petTypeId}", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<PetType> getPetType(@PathVariable("petTypeId") int petTypeId){
+	public ResponseEntity<PetType> getPetType(@PathVariable("petTypeId") int petTypeId, WebRequest request){
 		PetType petType = this.clinicService.findPetTypeById(petTypeId);
 		if(petType == null){
 			return new ResponseEntity<PetType>(HttpStatus.NOT_FOUND);
 		}
+		if (request.checkNotModified(EntityTags.of(Collections.singletonList(petType)))) {
+			return null;
+		}
 		return new ResponseEntity<PetType>(petType, HttpStatus.OK);
 	}
 
@@ -85,7 +95,8 @@ public class PetTypeRestController {
 
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "/{petTypeId}", method = RequestMethod.PUT, produces = "application/json")
-	public ResponseEntity<PetType> updatePetType(@PathVariable("petTypeId") int petTypeId, @RequestBody @Valid PetType petType, BindingResult bindingResult){
+	public ResponseEntity<PetType> updatePetType(@PathVariable("petTypeId") int petTypeId, @RequestBody @Valid PetType petType, BindingResult bindingResult,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
 		BindingErrorsResponse errors = new BindingErrorsResponse();
 		HttpHeaders headers = new HttpHeaders();
 		if(bindingResult.hasErrors() || (petType == null)){
@@ -97,6 +108,9 @@ public class PetTypeRestController {
 		if(currentPetType == null){
 			return new ResponseEntity<PetType>(HttpStatus.NOT_FOUND);
 		}
+		if (!EntityTags.matches(ifMatch, EntityTags.of(Collections.singletonList(currentPetType)))) {
+			return new ResponseEntity<PetType>(HttpStatus.PRECONDITION_FAILED);
+		}
 		currentPetType.setName(petType.getName());
 		this.clinicService.savePetType(currentPetType);
 		return new ResponseEntity<PetType>(currentPetType, HttpStatus.NO_CONTENT);
@@ -105,6 +119,7 @@ public class PetTypeRestController {
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "/{petTypeId}", method = RequestMethod.DELETE, produces = "application/json")
 	@Transactional
+	@RetryableTransaction
 	public ResponseEntity<Void> deletePetType(@PathVariable("petTypeId") int petTypeId){
 		PetType petType = this.clinicService.findPetTypeById(petTypeId);
 		if(petType == null){
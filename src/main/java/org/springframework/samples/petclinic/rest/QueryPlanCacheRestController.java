@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Hit and miss counts of the Hibernate query plan cache, which stays effective only as long as JPQL strings do not
+ * embed parameter values. Not found unless <code>hibernate.generate_statistics</code> is enabled.
+ */
+
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api/queryplancache")
+public class QueryPlanCacheRestController {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
+	public ResponseEntity<Map<String, Object>> getQueryPlanCacheStatistics(){
+		Statistics stats = getStatistics();
+		if (!stats.isStatisticsEnabled()) {
+			return new ResponseEntity<Map<String, Object>>(HttpStatus.NOT_FOUND);
+		}
+		long hitCount = stats.getQueryPlanCacheHitCount();
+		long missCount = stats.getQueryPlanCacheMissCount();
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("hitCount", hitCount);
+		statistics.put("missCount", missCount);
+		statistics.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 1.0);
+		statistics.put("queryExecutionCount", stats.getQueryExecutionCount());
+		return new ResponseEntity<Map<String, Object>>(statistics, HttpStatus.OK);
+	}
+
+    @PreAuthorize( "hasRole(@roles.ADMIN)" )
+	@RequestMapping(value = "", method = RequestMethod.DELETE, produces = "application/json")
+	public ResponseEntity<Void> resetQueryPlanCacheStatistics(){
+		Statistics stats = getStatistics();
+		if (!stats.isStatisticsEnabled()) {
+			return new ResponseEntity<Void>(HttpStatus.NOT_FOUND);
+		}
+		// clears all Hibernate statistics, which are only exposed here
+		stats.clear();
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+
+	private Statistics getStatistics() {
+		return this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+}
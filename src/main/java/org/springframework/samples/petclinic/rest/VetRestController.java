@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.rest;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
@@ -29,47 +30,71 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.RetryableTransaction;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * @author Vitaliy Fedoriv
  *
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, etag")
 @RequestMapping("api/vets")
 public class VetRestController {
 
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Vet>> getAllVets(){
+	public ResponseEntity<Collection<Vet>> getAllVets(WebRequest request){
 		Collection<Vet> vets = new ArrayList<Vet>();
 		vets.addAll(this.clinicService.findAllVets());
 		if (vets.isEmpty()){
 			return new ResponseEntity<Collection<Vet>>(HttpStatus.NOT_FOUND);
 		}
+		if (request.checkNotModified(EntityTags.ofVets(vets))) {
+			return null;
+		}
 		return new ResponseEntity<Collection<Vet>>(vets, HttpStatus.OK);
 	}
 
+    @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
+	@RequestMapping(value = "/stream", method = RequestMethod.GET, produces = NdjsonStreamingResponseBody.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> streamVets(){
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(NdjsonStreamingResponseBody.MEDIA_TYPE));
+		return new ResponseEntity<StreamingResponseBody>(
+			new NdjsonStreamingResponseBody<Vet>(this.objectMapper, this.clinicService::streamAllVets), headers, HttpStatus.OK);
+	}
+
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "/{vetId}", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Vet> getVet(@PathVariable("vetId") int vetId){
+	public ResponseEntity<Vet> getVet(@PathVariable("vetId") int vetId, WebRequest request){
 		Vet vet = this.clinicService.findVetById(vetId);
 		if(vet == null){
 			return new ResponseEntity<Vet>(HttpStatus.NOT_FOUND);
 		}
+		if (request.checkNotModified(EntityTags.ofVets(Collections.singletonList(vet)))) {
+			return null;
+		}
 		return new ResponseEntity<Vet>(vet, HttpStatus.OK);
 	}
 
@@ -90,7 +115,8 @@ public class VetRestController {
 
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "/{vetId}", method = RequestMethod.PUT, produces = "application/json")
-	public ResponseEntity<Vet> updateVet(@PathVariable("vetId") int vetId, @RequestBody @Valid Vet vet, BindingResult bindingResult){
+	public ResponseEntity<Vet> updateVet(@PathVariable("vetId") int vetId, @RequestBody @Valid Vet vet, BindingResult bindingResult,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
 		BindingErrorsResponse errors = new BindingErrorsResponse();
 		HttpHeaders headers = new HttpHeaders();
 		if(bindingResult.hasErrors() || (vet == null)){
@@ -102,6 +128,9 @@ public class VetRestController {
 		if(currentVet == null){
 			return new ResponseEntity<Vet>(HttpStatus.NOT_FOUND);
 		}
+		if (!EntityTags.matches(ifMatch, EntityTags.ofVets(Collections.singletonList(currentVet)))) {
+			return new ResponseEntity<Vet>(HttpStatus.PRECONDITION_FAILED);
+		}
 		currentVet.setFirstName(vet.getFirstName());
 		currentVet.setLastName(vet.getLastName());
 		currentVet.clearSpecialties();
@@ -115,6 +144,7 @@ public class VetRestController {
     @PreAuthorize( "hasRole(@roles.VET_ADMIN)" )
 	@RequestMapping(value = "/{vetId}", method = RequestMethod.DELETE, produces = "application/json")
 	@Transactional
+	@RetryableTransaction
 	public ResponseEntity<Void> deleteVet(@PathVariable("vetId") int vetId){
 		Vet vet = this.clinicService.findVetById(vetId);
 		if(vet == null){
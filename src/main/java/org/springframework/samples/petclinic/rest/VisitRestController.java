@@ -16,29 +16,43 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
+import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.RetryableTransaction;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * @author Vitaliy Fedoriv
  *
@@ -49,20 +63,45 @@ import org.springframework.web.util.UriComponentsBuilder;
 @RequestMapping("api/visits")
 public class VisitRestController {
 
+	private static final int MAX_BATCH_SIZE = 10000;
+
 	@Autowired
 	private ClinicService clinicService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Validator validator;
+
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Visit>> getAllVisits(){
+	public ResponseEntity<Collection<Visit>> getAllVisits(
+			@RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") Date from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy/MM/dd") Date to,
+			@RequestParam(value = "petId", required = false) Integer petId,
+			@RequestParam(value = "ownerId", required = false) Integer ownerId){
 		Collection<Visit> visits = new ArrayList<Visit>();
-		visits.addAll(this.clinicService.findAllVisits());
+		if (from == null && to == null && petId == null && ownerId == null) {
+			visits.addAll(this.clinicService.findAllVisits());
+		} else {
+			visits.addAll(this.clinicService.findVisits(from, to, petId, ownerId));
+		}
 		if (visits.isEmpty()){
 			return new ResponseEntity<Collection<Visit>>(HttpStatus.NOT_FOUND);
 		}
 		return new ResponseEntity<Collection<Visit>>(visits, HttpStatus.OK);
 	}
 
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/stream", method = RequestMethod.GET, produces = NdjsonStreamingResponseBody.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> streamVisits(){
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(NdjsonStreamingResponseBody.MEDIA_TYPE));
+		return new ResponseEntity<StreamingResponseBody>(
+			new NdjsonStreamingResponseBody<Visit>(this.objectMapper, this.clinicService::streamAllVisits), headers, HttpStatus.OK);
+	}
+
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{visitId}", method = RequestMethod.GET, produces = "application/json")
 	public ResponseEntity<Visit> getVisit(@PathVariable("visitId") int visitId){
@@ -88,6 +127,47 @@ public class VisitRestController {
 		return new ResponseEntity<Visit>(visit, headers, HttpStatus.CREATED);
 	}
 
+    /**
+     * Creates new and updates existing visits in one transaction. The body is either a JSON array of visits or one
+     * visit per line (NDJSON). Nothing is saved if any visit is invalid; the errors of all visits are then returned
+     * in the response body, each visit being identified as <code>visits[index]</code>.
+     */
+    @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
+	@RequestMapping(value = "/batch", method = RequestMethod.POST,
+		consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonStreamingResponseBody.MEDIA_TYPE}, produces = "application/json")
+	public ResponseEntity<?> addVisits(InputStream body) throws IOException {
+		List<Visit> visits = new ArrayList<Visit>();
+		try (MappingIterator<Visit> iterator = this.objectMapper.readerFor(Visit.class).readValues(body)) {
+			while (iterator.hasNext()) {
+				if (visits.size() == MAX_BATCH_SIZE) {
+					return new ResponseEntity<Void>(HttpStatus.PAYLOAD_TOO_LARGE);
+				}
+				visits.add(iterator.next());
+			}
+		}
+		if (visits.isEmpty()) {
+			return new ResponseEntity<Void>(HttpStatus.BAD_REQUEST);
+		}
+		SpringValidatorAdapter visitValidator = new SpringValidatorAdapter(this.validator);
+		BindingErrorsResponse errors = new BindingErrorsResponse();
+		boolean hasErrors = false;
+		for (int i = 0; i < visits.size(); i++) {
+			Visit visit = visits.get(i);
+			BindingResult bindingResult = new BeanPropertyBindingResult(visit, "visits[" + i + "]");
+			visitValidator.validate(visit, bindingResult);
+			if (visit.getPet() == null) {
+				bindingResult.rejectValue("pet", "NotNull", "must not be null");
+			}
+			errors.addAllErrors(bindingResult);
+			hasErrors |= bindingResult.hasErrors();
+		}
+		if (hasErrors) {
+			return new ResponseEntity<String>(errors.toJSON(), HttpStatus.BAD_REQUEST);
+		}
+		this.clinicService.saveVisits(visits);
+		return new ResponseEntity<Collection<Visit>>(visits, HttpStatus.CREATED);
+	}
+
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{visitId}", method = RequestMethod.PUT, produces = "application/json")
 	public ResponseEntity<Visit> updateVisit(@PathVariable("visitId") int visitId, @RequestBody @Valid Visit visit, BindingResult bindingResult){
@@ -112,6 +192,7 @@ public class VisitRestController {
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/{visitId}", method = RequestMethod.DELETE, produces = "application/json")
 	@Transactional
+	@RetryableTransaction
 	public ResponseEntity<Void> deleteVisit(@PathVariable("visitId") int visitId){
 		Visit visit = this.clinicService.findVisitById(visitId);
 		if(visit == null){
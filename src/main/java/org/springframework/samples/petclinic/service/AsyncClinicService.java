@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Runs {@link ClinicService} calls on a bounded executor of their own, for the asynchronous endpoints: the request
+ * thread is released while the call waits for the database, and a saturated executor rejects calls instead of
+ * letting slow queries take every request thread.
+ *
+ * @see org.springframework.samples.petclinic.util.AsyncExecutorConfig
+ */
+public class AsyncClinicService implements DisposableBean {
+
+    private final ClinicService clinicService;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    public AsyncClinicService(ClinicService clinicService, ThreadPoolTaskExecutor executor) {
+        this.clinicService = clinicService;
+        this.executor = executor;
+    }
+
+    /**
+     * Submits the given call of the clinic service to the executor.
+     * <p>
+     * Cancelling the returned future, e.g. when the request times out, cancels the call: it is skipped if it is still
+     * queued and its executor thread is interrupted if it is running.
+     *
+     * @return the result of the call, completed by an executor thread
+     * @throws TaskRejectedException if the executor is saturated and rejects the call
+     */
+    public <T> CompletableFuture<T> call(Function<ClinicService, T> call) throws TaskRejectedException {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        Future<?> task = this.executor.submit(() -> {
+            try {
+                result.complete(call.apply(this.clinicService));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        result.whenComplete((value, ex) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdown();
+    }
+
+}
@@ -16,9 +16,13 @@
 package org.springframework.samples.petclinic.service;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -36,23 +40,35 @@ public interface ClinicService {
 
 	Pet findPetById(int id) throws DataAccessException;
 	Collection<Pet> findAllPets() throws DataAccessException;
+	Collection<Pet> findPets(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) throws DataAccessException;
+	Collection<Pet> findPetProjections(Set<String> properties, Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) throws DataAccessException;
+	void streamAllPets(Consumer<? super Pet> action) throws DataAccessException;
 	void savePet(Pet pet) throws DataAccessException;
 	void deletePet(Pet pet) throws DataAccessException;
 
 	Collection<Visit> findVisitsByPetId(int petId);
 	Visit findVisitById(int visitId) throws DataAccessException;
 	Collection<Visit> findAllVisits() throws DataAccessException;
+	Collection<Visit> findVisits(Date from, Date to, Integer petId, Integer ownerId) throws DataAccessException;
+	void streamAllVisits(Consumer<? super Visit> action) throws DataAccessException;
 	void saveVisit(Visit visit) throws DataAccessException;
+	void saveVisits(Collection<Visit> visits) throws DataAccessException;
 	void deleteVisit(Visit visit) throws DataAccessException;
 	
 	Vet findVetById(int id) throws DataAccessException;
 	Collection<Vet> findVets() throws DataAccessException;
 	Collection<Vet> findAllVets() throws DataAccessException;
+	void streamAllVets(Consumer<? super Vet> action) throws DataAccessException;
 	void saveVet(Vet vet) throws DataAccessException;
 	void deleteVet(Vet vet) throws DataAccessException;
 	
 	Owner findOwnerById(int id) throws DataAccessException;
+	Long findOwnerGraphVersion(int id) throws DataAccessException;
 	Collection<Owner> findAllOwners() throws DataAccessException;
+	Collection<OwnerSummary> findAllOwnerSummaries() throws DataAccessException;
+	Collection<OwnerSummary> searchOwners(String query, int limit) throws DataAccessException;
+	Collection<Owner> findOwnersPage(int afterId, int limit) throws DataAccessException;
+	void streamAllOwners(Consumer<? super Owner> action) throws DataAccessException;
 	void saveOwner(Owner owner) throws DataAccessException;
 	void deleteOwner(Owner owner) throws DataAccessException;
 	Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
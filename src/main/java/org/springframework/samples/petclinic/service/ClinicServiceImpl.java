@@ -16,13 +16,20 @@
 package org.springframework.samples.petclinic.service;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -34,6 +41,9 @@ import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.OwnerSearch;
+import org.springframework.samples.petclinic.util.OwnerSearchIndex;
+import org.springframework.samples.petclinic.util.RetryableTransaction;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -54,6 +64,7 @@ public class ClinicServiceImpl implements ClinicService {
     private VisitRepository visitRepository;
     private SpecialtyRepository specialtyRepository;
 	private PetTypeRepository petTypeRepository;
+	private OwnerSearchIndex ownerSearchIndex;
 
     @Autowired
      public ClinicServiceImpl(
@@ -71,16 +82,45 @@ public class ClinicServiceImpl implements ClinicService {
 		this.petTypeRepository = petTypeRepository;
     }
 
+	/**
+	 * Answers the owner searches from the given in-memory index instead of the owner repository.
+	 */
+	@Autowired(required = false)
+	public void setOwnerSearchIndex(OwnerSearchIndex ownerSearchIndex) {
+		this.ownerSearchIndex = ownerSearchIndex;
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Pet> findAllPets() throws DataAccessException {
 		return petRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Pet> findPets(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) throws DataAccessException {
+		return petRepository.findByCriteria(typeId, ownerId, bornAfter, bornBefore);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Pet> findPetProjections(Set<String> properties, Integer typeId, Integer ownerId, Date bornAfter,
+			Date bornBefore) throws DataAccessException {
+		return petRepository.findProjectionsByCriteria(properties, typeId, ownerId, bornAfter, bornBefore);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void streamAllPets(Consumer<? super Pet> action) throws DataAccessException {
+		petRepository.streamAll(action);
+	}
+
 	@Override
 	@Transactional
+	@RetryableTransaction
 	public void deletePet(Pet pet) throws DataAccessException {
 		petRepository.delete(pet);
+		invalidateOwnerSearchIndex();
 	}
 
 	@Override
@@ -102,8 +142,21 @@ public class ClinicServiceImpl implements ClinicService {
 		return visitRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Visit> findVisits(Date from, Date to, Integer petId, Integer ownerId) throws DataAccessException {
+		return visitRepository.findByCriteria(from, to, petId, ownerId);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void streamAllVisits(Consumer<? super Visit> action) throws DataAccessException {
+		visitRepository.streamAll(action);
+	}
+
 	@Override
 	@Transactional
+	@RetryableTransaction
 	public void deleteVisit(Visit visit) throws DataAccessException {
 		visitRepository.delete(visit);
 	}
@@ -123,18 +176,29 @@ public class ClinicServiceImpl implements ClinicService {
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(value = "vets")
 	public Collection<Vet> findAllVets() throws DataAccessException {
 		return vetRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public void streamAllVets(Consumer<? super Vet> action) throws DataAccessException {
+		vetRepository.streamAll(action);
+	}
+
 	@Override
 	@Transactional
+	@RetryableTransaction
+	@CacheEvict(value = "vets", allEntries = true)
 	public void saveVet(Vet vet) throws DataAccessException {
 		vetRepository.save(vet);
 	}
 
 	@Override
 	@Transactional
+	@RetryableTransaction
+	@CacheEvict(value = "vets", allEntries = true)
 	public void deleteVet(Vet vet) throws DataAccessException {
 		vetRepository.delete(vet);
 	}
@@ -145,10 +209,46 @@ public class ClinicServiceImpl implements ClinicService {
 		return ownerRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<OwnerSummary> findAllOwnerSummaries() throws DataAccessException {
+		return ownerRepository.findAllSummaries();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<OwnerSummary> searchOwners(String query, int limit) throws DataAccessException {
+		List<String> terms = OwnerSearch.terms(query);
+		if (terms.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return ownerSearchIndex != null ? ownerSearchIndex.search(terms, limit) : ownerRepository.search(terms, limit);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Long findOwnerGraphVersion(int id) throws DataAccessException {
+		return ownerRepository.findGraphVersion(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Owner> findOwnersPage(int afterId, int limit) throws DataAccessException {
+		return ownerRepository.findPage(afterId, limit);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void streamAllOwners(Consumer<? super Owner> action) throws DataAccessException {
+		ownerRepository.streamAll(action);
+	}
+
 	@Override
 	@Transactional
+	@RetryableTransaction
 	public void deleteOwner(Owner owner) throws DataAccessException {
 		ownerRepository.delete(owner);
+		invalidateOwnerSearchIndex();
 	}
 
 	@Override
@@ -166,20 +266,26 @@ public class ClinicServiceImpl implements ClinicService {
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(value = "petTypes")
 	public Collection<PetType> findAllPetTypes() throws DataAccessException {
 		return petTypeRepository.findAll();
 	}
 
 	@Override
 	@Transactional
+	@RetryableTransaction
+	@CacheEvict(value = "petTypes", allEntries = true)
 	public void savePetType(PetType petType) throws DataAccessException {
 		petTypeRepository.save(petType);
 	}
 
 	@Override
 	@Transactional
+	@RetryableTransaction
+	@CacheEvict(value = "petTypes", allEntries = true)
 	public void deletePetType(PetType petType) throws DataAccessException {
 		petTypeRepository.delete(petType);
+		invalidateOwnerSearchIndex();
 	}
 
 	@Override
@@ -197,24 +303,30 @@ public class ClinicServiceImpl implements ClinicService {
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(value = "specialties")
 	public Collection<Specialty> findAllSpecialties() throws DataAccessException {
 		return specialtyRepository.findAll();
 	}
 
 	@Override
 	@Transactional
+	@RetryableTransaction
+	@CacheEvict(value = {"specialties", "vets"}, allEntries = true)
 	public void saveSpecialty(Specialty specialty) throws DataAccessException {
 		specialtyRepository.save(specialty);
 	}
 
 	@Override
 	@Transactional
+	@RetryableTransaction
+	@CacheEvict(value = {"specialties", "vets"}, allEntries = true)
 	public void deleteSpecialty(Specialty specialty) throws DataAccessException {
 		specialtyRepository.delete(specialty);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(value = "petTypes", key = "'byName'")
 	public Collection<PetType> findPetTypes() throws DataAccessException {
 		return petRepository.findPetTypes();
 	}
@@ -247,18 +359,27 @@ public class ClinicServiceImpl implements ClinicService {
 
 	@Override
 	@Transactional
+	@RetryableTransaction
 	public void savePet(Pet pet) throws DataAccessException {
 		petRepository.save(pet);
-		
+		invalidateOwnerSearchIndex();
 	}
 
 	@Override
 	@Transactional
+	@RetryableTransaction
 	public void saveVisit(Visit visit) throws DataAccessException {
 		visitRepository.save(visit);
 		
 	}
 
+	@Override
+	@Transactional
+	@RetryableTransaction
+	public void saveVisits(Collection<Visit> visits) throws DataAccessException {
+		visitRepository.saveAll(visits);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
     @Cacheable(value = "vets")
@@ -268,9 +389,10 @@ public class ClinicServiceImpl implements ClinicService {
 
 	@Override
 	@Transactional
+	@RetryableTransaction
 	public void saveOwner(Owner owner) throws DataAccessException {
 		ownerRepository.save(owner);
-		
+		invalidateOwnerSearchIndex();
 	}
 
 	@Override
@@ -284,6 +406,12 @@ public class ClinicServiceImpl implements ClinicService {
 	public Collection<Visit> findVisitsByPetId(int petId) {
 		return visitRepository.findByPetId(petId);
 	}
+
+	private void invalidateOwnerSearchIndex() {
+		if (ownerSearchIndex != null) {
+			ownerSearchIndex.invalidate();
+		}
+	}
 	
 	
 
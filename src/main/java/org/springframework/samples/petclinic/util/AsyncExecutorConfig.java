@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.service.AsyncClinicService;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Java config for the asynchronous endpoints under <code>/api/async</code>.
+ * <p>
+ * Their {@link ClinicService} calls run on a bounded executor sized by the <code>petclinic.async.*</code> properties,
+ * {@link AsyncExecutorProperties}. The executor is owned by the {@link AsyncClinicService} rather than being a bean
+ * of its own, which would replace the Spring Boot task executor of the streaming endpoints. The
+ * {@link AsyncExecutorMonitor} is exported as the <code>petclinic:type=AsyncExecutor</code> MBean when JMX is enabled.
+ */
+@Configuration
+@EnableConfigurationProperties(AsyncExecutorProperties.class)
+public class AsyncExecutorConfig {
+
+    @Bean
+    public AsyncExecutorMonitor asyncExecutorMonitor() {
+        return new AsyncExecutorMonitor();
+    }
+
+    @Bean
+    public AsyncClinicService asyncClinicService(ClinicService clinicService, AsyncExecutorProperties properties,
+                                                 AsyncExecutorMonitor monitor) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("clinic-async-");
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setTaskDecorator(monitor);
+        executor.setRejectedExecutionHandler(monitor.countRejections(properties.getRejectionPolicy().handler()));
+        executor.initialize();
+        monitor.monitor(executor);
+        return new AsyncClinicService(clinicService, executor);
+    }
+
+}
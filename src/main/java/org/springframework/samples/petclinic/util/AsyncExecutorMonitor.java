@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Metrics of the executor of the asynchronous endpoints, installed as its {@link TaskDecorator} and around its
+ * rejection policy by {@link AsyncExecutorConfig}.
+ * <p>
+ * Besides the thread and queue counts of the executor, it keeps {@link LatencyHistogram}s, in nanoseconds, of the time
+ * calls wait in the queue and of the time they run, and counts the calls rejected because the executor was saturated.
+ * A growing queue time is the first sign of saturation. Available through the
+ * <code>petclinic:type=AsyncExecutor</code> MBean and the <code>/api/asyncexecutor</code> endpoint.
+ */
+@ManagedResource("petclinic:type=AsyncExecutor")
+public class AsyncExecutorMonitor implements TaskDecorator {
+
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+
+    private final LatencyHistogram executionTime = new LatencyHistogram();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile ThreadPoolTaskExecutor executor;
+
+    void monitor(ThreadPoolTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        long queued = System.nanoTime();
+        return () -> {
+            long started = System.nanoTime();
+            this.queueTime.record(started - queued);
+            try {
+                task.run();
+            } finally {
+                this.executionTime.record(System.nanoTime() - started);
+            }
+        };
+    }
+
+    /**
+     * Counts the rejected calls before handing them to the given policy.
+     */
+    RejectedExecutionHandler countRejections(RejectedExecutionHandler policy) {
+        return (task, executor) -> {
+            this.rejected.increment();
+            policy.rejectedExecution(task, executor);
+        };
+    }
+
+    @ManagedOperation
+    public void reset() {
+        this.queueTime.reset();
+        this.executionTime.reset();
+        this.rejected.reset();
+    }
+
+    @ManagedAttribute
+    public int getActiveCount() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getActiveCount() : 0;
+    }
+
+    @ManagedAttribute
+    public int getPoolSize() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getPoolSize() : 0;
+    }
+
+    @ManagedAttribute
+    public int getLargestPoolSize() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getLargestPoolSize() : 0;
+    }
+
+    @ManagedAttribute
+    public int getMaxPoolSize() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getMaximumPoolSize() : 0;
+    }
+
+    @ManagedAttribute
+    public int getQueueSize() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getQueue().size() : 0;
+    }
+
+    @ManagedAttribute
+    public int getQueueRemainingCapacity() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getQueue().remainingCapacity() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompletedCount() {
+        ThreadPoolExecutor pool = threadPool();
+        return pool != null ? pool.getCompletedTaskCount() : 0;
+    }
+
+    @ManagedAttribute
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Time calls waited in the queue at the given percentile, in nanoseconds.
+     */
+    @ManagedOperation
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "percentile", description = "Percentile, e.g. 50, 99 or 99.9")})
+    public long getQueueTimePercentile(double percentile) {
+        return this.queueTime.getValueAtPercentile(percentile);
+    }
+
+    public LatencyHistogram getQueueTime() {
+        return this.queueTime;
+    }
+
+    public LatencyHistogram getExecutionTime() {
+        return this.executionTime;
+    }
+
+    private ThreadPoolExecutor threadPool() {
+        ThreadPoolTaskExecutor executor = this.executor;
+        return executor != null ? executor.getThreadPoolExecutor() : null;
+    }
+
+}
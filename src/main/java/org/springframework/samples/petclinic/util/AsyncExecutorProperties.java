@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Executor of the asynchronous endpoints, from the <code>petclinic.async.*</code> properties, see
+ * {@link AsyncExecutorConfig}.
+ */
+@ConfigurationProperties("petclinic.async")
+public class AsyncExecutorProperties {
+
+    /**
+     * Threads kept running, even when idle.
+     */
+    private int corePoolSize = 8;
+
+    /**
+     * Threads started, beyond the core ones, while the queue is full.
+     */
+    private int maxPoolSize = 16;
+
+    /**
+     * Calls waiting for a thread.
+     */
+    private int queueCapacity = 100;
+
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+    public int getCorePoolSize() {
+        return this.corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return this.maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return this.rejectionPolicy;
+    }
+
+    public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * What happens to a call when all threads are busy and the queue is full.
+     */
+    public enum RejectionPolicy {
+
+        /**
+         * Fail the call, answered with <code>503 Service Unavailable</code>.
+         */
+        ABORT {
+            @Override
+            RejectedExecutionHandler handler() {
+                return new ThreadPoolExecutor.AbortPolicy();
+            }
+        },
+
+        /**
+         * Run the call on the request thread, as the synchronous endpoints do.
+         */
+        CALLER_RUNS {
+            @Override
+            RejectedExecutionHandler handler() {
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            }
+        };
+
+        abstract RejectedExecutionHandler handler();
+
+    }
+
+}
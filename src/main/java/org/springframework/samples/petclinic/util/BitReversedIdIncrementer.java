@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+
+/**
+ * {@link DataFieldMaxValueIncrementer} turning the values of a database sequence into non-sequential ids, by
+ * reversing their 31 low bits.
+ * <p>
+ * The mapping is one to one, so the ids stay unique, but consecutive sequence values land far apart in the key space:
+ * new rows are spread over the whole primary key index instead of all going to its last page, and the ids do not give
+ * away the number of rows or the order they were created in.
+ * <p>
+ * With an allocation size above one, each value of the sequence is the first of a block of that many values, which
+ * are handed out without going back to the database: the sequence must then be incremented by the allocation size.
+ */
+public class BitReversedIdIncrementer implements DataFieldMaxValueIncrementer {
+
+    private final DataFieldMaxValueIncrementer sequence;
+
+    private final int allocationSize;
+
+    private long nextValue;
+
+    private long upperLimit;
+
+    /**
+     * Reverses each value of the given sequence, which may cache values itself.
+     */
+    public BitReversedIdIncrementer(DataFieldMaxValueIncrementer sequence) {
+        this(sequence, 1);
+    }
+
+    /**
+     * Reverses the values of blocks of <code>allocationSize</code> values, starting at each value of the sequence.
+     */
+    public BitReversedIdIncrementer(DataFieldMaxValueIncrementer sequence, int allocationSize) {
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException("Allocation size must be positive: " + allocationSize);
+        }
+        this.sequence = sequence;
+        this.allocationSize = allocationSize;
+    }
+
+    /**
+     * Reverses the 31 low bits of a sequence value, giving a positive <code>int</code>.
+     *
+     * @throws DataIntegrityViolationException if the value is not between 1 and {@link Integer#MAX_VALUE}
+     */
+    public static int reverse(long value) {
+        if (value < 1 || value > Integer.MAX_VALUE) {
+            throw new DataIntegrityViolationException("Sequence value " + value + " is out of the range of the ids");
+        }
+        return Integer.reverse((int) value) >>> 1;
+    }
+
+    @Override
+    public int nextIntValue() throws DataAccessException {
+        return reverse(nextValue());
+    }
+
+    private synchronized long nextValue() {
+        if (this.nextValue >= this.upperLimit) {
+            this.nextValue = this.sequence.nextLongValue();
+            this.upperLimit = this.nextValue + this.allocationSize;
+        }
+        return this.nextValue++;
+    }
+
+    @Override
+    public long nextLongValue() throws DataAccessException {
+        return nextIntValue();
+    }
+
+    @Override
+    public String nextStringValue() throws DataAccessException {
+        return String.valueOf(nextIntValue());
+    }
+
+}
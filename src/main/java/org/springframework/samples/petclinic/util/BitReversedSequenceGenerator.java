@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.jpa.spi.IdentifierGeneratorStrategyProvider;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Hibernate identifier generator for the JPA repositories giving the same non-sequential ids as the
+ * {@link BitReversedIdIncrementer} of the JDBC ones: the values of the shared <code>id_sequence</code> (a table of
+ * that name on databases without sequences) with their 31 low bits reversed.
+ * <p>
+ * Like the {@link PooledSequenceGenerator}, it uses a pooled optimizer: one sequence call hands out a block of
+ * {@link PooledSequenceGenerator#ALLOCATION_SIZE_SETTING allocation size} values, starting at the value returned, which
+ * are reversed without going back to the database. The sequence must be incremented by the allocation size.
+ * <p>
+ * The entities keep their <code>@GeneratedValue(strategy = IDENTITY)</code> mapping; the {@link StrategyProvider}
+ * replaces the <code>identity</code> strategy with this generator when <code>petclinic.id-generation</code> is
+ * <code>bit-reversed</code> (see {@link IdGenerationConfig}).
+ */
+public class BitReversedSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String SEQUENCE_NAME = "id_sequence";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        if (!params.containsKey(SEQUENCE_PARAM)) {
+            params.setProperty(SEQUENCE_PARAM, SEQUENCE_NAME);
+        }
+        params.setProperty(INCREMENT_PARAM, String.valueOf(PooledSequenceGenerator.allocationSize(serviceRegistry)));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        Number value = (Number) super.generate(session, object);
+        return BitReversedIdIncrementer.reverse(value.longValue());
+    }
+
+    /**
+     * Maps the <code>identity</code> generation strategy to the {@link BitReversedSequenceGenerator}.
+     */
+    public static class StrategyProvider implements IdentifierGeneratorStrategyProvider {
+
+        @Override
+        public Map<String, Class<?>> getStrategies() {
+            return Collections.singletonMap("identity", BitReversedSequenceGenerator.class);
+        }
+
+    }
+
+}
@@ -15,19 +15,35 @@
  */
 package org.springframework.samples.petclinic.util;
 
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
 
 /**
  * Simple aspect that monitors call count and call invocation time. It uses JMX annotations and therefore can be
  * monitored using any JMX console such as the jConsole
  * <p/>
- * This is only useful if you use JPA or JDBC.  Spring-data-jpa doesn't have any correctly annotated classes to join on
+ * Calls are counted with striped {@link LongAdder}s and timed in nanoseconds into a {@link LatencyHistogram} per
+ * repository method, so monitoring does not serialize the calling threads. Percentiles of each method are available
+ * through {@link #getPercentile} and the <code>/api/callmonitor</code> endpoint.
+ * <p/>
+ * Spring-data-jpa doesn't have any correctly annotated classes to join on, so the methods of the repository interfaces
+ * are monitored as well.
  *
  * @author Rob Harrop
  * @author Juergen Hoeller
@@ -38,11 +54,16 @@ import org.springframework.util.StopWatch;
 @Aspect
 public class CallMonitoringAspect {
 
-    private boolean enabled = true;
+    private volatile boolean enabled = true;
+
+    private final LongAdder callCount = new LongAdder();
 
-    private int callCount = 0;
+    private final LongAdder accumulatedCallTime = new LongAdder();
 
-    private long accumulatedCallTime = 0;
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    // avoids building the method name on every call; overloaded methods share the histogram of their name
+    private final ConcurrentMap<Method, LatencyHistogram> histogramsByMethod = new ConcurrentHashMap<Method, LatencyHistogram>();
 
     @ManagedAttribute
     public boolean isEnabled() {
@@ -56,42 +77,81 @@ public class CallMonitoringAspect {
 
     @ManagedOperation
     public void reset() {
-        this.callCount = 0;
-        this.accumulatedCallTime = 0;
+        this.callCount.reset();
+        this.accumulatedCallTime.reset();
+        for (LatencyHistogram histogram : this.histograms.values()) {
+            histogram.reset();
+        }
     }
 
     @ManagedAttribute
-    public int getCallCount() {
-        return callCount;
+    public long getCallCount() {
+        return callCount.sum();
     }
 
+    /**
+     * Average call time in milliseconds.
+     */
     @ManagedAttribute
     public long getCallTime() {
-        if (this.callCount > 0)
-            return this.accumulatedCallTime / this.callCount;
+        long count = this.callCount.sum();
+        if (count > 0)
+            return TimeUnit.NANOSECONDS.toMillis(this.accumulatedCallTime.sum() / count);
         else
             return 0;
     }
 
+    @ManagedAttribute
+    public String[] getMonitoredMethods() {
+        return this.histograms.keySet().stream().sorted().toArray(String[]::new);
+    }
 
-    @Around("within(@org.springframework.stereotype.Repository *)")
+    /**
+     * Call time of the given method at the given percentile, in nanoseconds.
+     */
+    @ManagedOperation
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "method", description = "Monitored method, as in MonitoredMethods"),
+        @ManagedOperationParameter(name = "percentile", description = "Percentile, e.g. 50, 99 or 99.9")})
+    public long getPercentile(String method, double percentile) {
+        LatencyHistogram histogram = this.histograms.get(method);
+        return histogram != null ? histogram.getValueAtPercentile(percentile) : 0;
+    }
+
+    /**
+     * Call time histograms by method, sorted by method name.
+     */
+    public SortedMap<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, LatencyHistogram>(this.histograms));
+    }
+
+
+    @Around("within(@org.springframework.stereotype.Repository *) "
+        + "|| execution(* org.springframework.samples.petclinic.repository.*Repository.*(..))")
     public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
         if (this.enabled) {
-            StopWatch sw = new StopWatch(joinPoint.toShortString());
-
-            sw.start("invoke");
+            long start = System.nanoTime();
             try {
                 return joinPoint.proceed();
             } finally {
-                sw.stop();
-                synchronized (this) {
-                    this.callCount++;
-                    this.accumulatedCallTime += sw.getTotalTimeMillis();
-                }
+                long elapsed = System.nanoTime() - start;
+                this.callCount.increment();
+                this.accumulatedCallTime.add(elapsed);
+                histogram(((MethodSignature) joinPoint.getSignature()).getMethod()).record(elapsed);
             }
         } else {
             return joinPoint.proceed();
         }
     }
 
+    private LatencyHistogram histogram(Method method) {
+        LatencyHistogram histogram = this.histogramsByMethod.get(method);
+        if (histogram == null) {
+            String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            histogram = this.histogramsByMethod.computeIfAbsent(method,
+                key -> this.histograms.computeIfAbsent(name, n -> new LatencyHistogram()));
+        }
+        return histogram;
+    }
+
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Java config for the monitoring of the HikariCP connection pools.
+ * <p>
+ * Pool sizes, timeouts, leak detection and the driver statement caches are plain
+ * <code>spring.datasource.hikari.*</code> properties, with defaults in <code>application.properties</code> and in the
+ * property file of each database profile. This config only installs the {@link ConnectionPoolMonitor} on every
+ * {@link HikariDataSource}, including the pools of a {@link ReplicaRoutingDataSource}, before they are started; it is
+ * exported as the <code>petclinic:type=ConnectionPoolMonitor</code> MBean when JMX is enabled.
+ */
+@Configuration
+public class ConnectionPoolConfig {
+
+    @Bean
+    public ConnectionPoolMonitor connectionPoolMonitor() {
+        return new ConnectionPoolMonitor();
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionPoolMonitorInstaller(
+        ObjectProvider<ConnectionPoolMonitor> connectionPoolMonitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // before Spring Boot initializes the database, which starts the pools
+                if (bean instanceof HikariDataSource) {
+                    install((HikariDataSource) bean);
+                } else if (bean instanceof ReplicaRoutingDataSource) {
+                    ((ReplicaRoutingDataSource) bean).getPools().forEach(this::install);
+                }
+                return bean;
+            }
+
+            private void install(HikariDataSource dataSource) {
+                // leave a metrics tracker configured through the pool properties alone
+                if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+                    dataSource.setMetricsTrackerFactory(connectionPoolMonitor.getObject());
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Metrics of the HikariCP connection pools, installed as their {@link MetricsTrackerFactory} by
+ * {@link ConnectionPoolConfig}.
+ * <p>
+ * For each pool it keeps the connection counts reported by HikariCP (refreshed by the pool at most once a second)
+ * and {@link LatencyHistogram}s, in nanoseconds, of the time spent waiting for a connection, of the time a connection
+ * is held by the application and of the time taken to open a new physical connection. Available through the
+ * <code>petclinic:type=ConnectionPoolMonitor</code> MBean and the <code>/api/connectionpool</code> endpoint.
+ */
+@ManagedResource("petclinic:type=ConnectionPoolMonitor")
+public class ConnectionPoolMonitor implements MetricsTrackerFactory {
+
+    private final ConcurrentMap<String, PoolMetrics> pools = new ConcurrentHashMap<String, PoolMetrics>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolMetrics metrics = new PoolMetrics(poolStats);
+        this.pools.put(poolName, metrics);
+        return metrics;
+    }
+
+    @ManagedOperation
+    public void reset() {
+        for (PoolMetrics metrics : this.pools.values()) {
+            metrics.reset();
+        }
+    }
+
+    @ManagedAttribute
+    public String[] getMonitoredPools() {
+        return this.pools.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    /**
+     * Time waited for a connection of the given pool at the given percentile, in nanoseconds.
+     */
+    @ManagedOperation
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "pool", description = "Monitored pool, as in MonitoredPools"),
+        @ManagedOperationParameter(name = "percentile", description = "Percentile, e.g. 50, 99 or 99.9")})
+    public long getAcquirePercentile(String pool, double percentile) {
+        PoolMetrics metrics = this.pools.get(pool);
+        return metrics != null ? metrics.getAcquireTime().getValueAtPercentile(percentile) : 0;
+    }
+
+    /**
+     * Number of threads of the given pool waiting for a connection.
+     */
+    @ManagedOperation
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "pool", description = "Monitored pool, as in MonitoredPools")})
+    public int getPendingThreads(String pool) {
+        PoolMetrics metrics = this.pools.get(pool);
+        return metrics != null ? metrics.getPoolStats().getPendingThreads() : 0;
+    }
+
+    /**
+     * Metrics by pool, sorted by pool name.
+     */
+    public SortedMap<String, PoolMetrics> getPools() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, PoolMetrics>(this.pools));
+    }
+
+
+    /**
+     * Metrics of one pool, recorded by HikariCP through the {@link IMetricsTracker} callbacks.
+     */
+    public static class PoolMetrics implements IMetricsTracker {
+
+        private final PoolStats poolStats;
+
+        private final LatencyHistogram acquireTime = new LatencyHistogram();
+
+        private final LatencyHistogram usageTime = new LatencyHistogram();
+
+        private final LatencyHistogram creationTime = new LatencyHistogram();
+
+        private final LongAdder timeouts = new LongAdder();
+
+        PoolMetrics(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            this.acquireTime.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            this.usageTime.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            this.creationTime.record(TimeUnit.MILLISECONDS.toNanos(connectionCreatedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            this.timeouts.increment();
+        }
+
+        public PoolStats getPoolStats() {
+            return this.poolStats;
+        }
+
+        public LatencyHistogram getAcquireTime() {
+            return this.acquireTime;
+        }
+
+        public LatencyHistogram getUsageTime() {
+            return this.usageTime;
+        }
+
+        public LatencyHistogram getCreationTime() {
+            return this.creationTime;
+        }
+
+        public long getTimeouts() {
+            return this.timeouts.sum();
+        }
+
+        void reset() {
+            this.acquireTime.reset();
+            this.usageTime.reset();
+            this.creationTime.reset();
+            this.timeouts.reset();
+        }
+
+    }
+
+}
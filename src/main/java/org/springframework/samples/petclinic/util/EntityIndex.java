@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Entities of one class indexed by id, for joining rows loaded by separate queries in memory.
+ * <p>
+ * Ids are kept as primitive ints in an open-addressing hash table with linear probing, so neither lookups nor
+ * insertions box the id and a join of n rows against m entities costs O(n + m) instead of the O(n &times; m) of
+ * repeated {@link EntityUtils#getById} scans. Not thread-safe; meant to live as long as the query it serves.
+ *
+ * @param <T> the entity type
+ * @see EntityUtils#indexById
+ */
+public class EntityIndex<T extends BaseEntity> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final Class<T> entityClass;
+
+    private int[] ids;
+
+    private Object[] entities;
+
+    private int size;
+
+    public EntityIndex(Class<T> entityClass, int expectedSize) {
+        this.entityClass = entityClass;
+        // keep the load factor at or below 1/2 so that probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize) * 2 - 1) << 1;
+        this.ids = new int[capacity];
+        this.entities = new Object[capacity];
+    }
+
+    /**
+     * Add the given entity, replacing any entity with the same id.
+     *
+     * @param entity a persisted entity
+     * @return the replaced entity, or <code>null</code> if there was none
+     * @throws IllegalArgumentException if the entity has not been persisted yet
+     */
+    public T put(T entity) {
+        if (entity.isNew()) {
+            throw new IllegalArgumentException("Cannot index an entity without id: " + entity);
+        }
+        if ((this.size + 1) * 2 > this.entities.length) {
+            resize(this.entities.length * 2);
+        }
+        int id = entity.getId();
+        int slot = slotOf(id);
+        if (this.entities[slot] == null) {
+            this.ids[slot] = id;
+            this.entities[slot] = entity;
+            this.size++;
+            return null;
+        }
+        T previous = this.entityClass.cast(this.entities[slot]);
+        this.entities[slot] = entity;
+        return previous;
+    }
+
+    /**
+     * @return the entity with the given id, or <code>null</code> if there is none
+     */
+    public T get(int id) {
+        return this.entityClass.cast(this.entities[slotOf(id)]);
+    }
+
+    /**
+     * Look up the entity with the given id, failing like {@link EntityUtils#getById} if there is none.
+     *
+     * @throws ObjectRetrievalFailureException if the entity was not found
+     */
+    public T getById(int id) throws ObjectRetrievalFailureException {
+        T entity = get(id);
+        if (entity == null) {
+            throw new ObjectRetrievalFailureException(this.entityClass, id);
+        }
+        return entity;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the slot holding the given id, or the empty slot where it would be inserted
+     */
+    private int slotOf(int id) {
+        int mask = this.entities.length - 1;
+        int slot = hash(id) & mask;
+        while (this.entities[slot] != null && this.ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldIds = this.ids;
+        Object[] oldEntities = this.entities;
+        this.ids = new int[capacity];
+        this.entities = new Object[capacity];
+        for (int i = 0; i < oldEntities.length; i++) {
+            if (oldEntities[i] != null) {
+                int slot = slotOf(oldIds[i]);
+                this.ids[slot] = oldIds[i];
+                this.entities[slot] = oldEntities[i];
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        // Fibonacci hashing, so that ids sharing their low bits do not all land in the same slots
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
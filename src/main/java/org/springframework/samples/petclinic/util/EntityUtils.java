@@ -17,7 +17,14 @@
 package org.springframework.samples.petclinic.util;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.jpa.QueryHints;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
@@ -32,6 +39,19 @@ import org.springframework.samples.petclinic.model.BaseEntity;
  */
 public abstract class EntityUtils {
 
+    /**
+     * Number of rows fetched from the database per round trip when streaming query results.
+     */
+    public static final int STREAM_FETCH_SIZE = 100;
+
+    /**
+     * Number of statements sent to the database per JDBC batch when saving many entities at once. Matches the
+     * <code>hibernate.jdbc.batch_size</code> setting of the JPA profiles.
+     */
+    public static final int WRITE_BATCH_SIZE = 50;
+
+    private static final long VERSION_MULTIPLIER = 1_000_003L;
+
     /**
      * Look up the entity of the given class with the given id in the given collection.
      *
@@ -51,4 +71,109 @@ public abstract class EntityUtils {
         throw new ObjectRetrievalFailureException(entityClass, entityId);
     }
 
+    /**
+     * Index the given entities by id, for repeated lookups in loops where {@link #getById} would scan the collection
+     * every time.
+     *
+     * @param entities    the entities to index
+     * @param entityClass the entity class
+     * @return a new index of the given entities
+     */
+    public static <T extends BaseEntity> EntityIndex<T> indexById(Collection<? extends T> entities, Class<T> entityClass) {
+        EntityIndex<T> index = new EntityIndex<T>(entityClass, entities.size());
+        for (T entity : entities) {
+            index.put(entity);
+        }
+        return index;
+    }
+
+    /**
+     * Hand the results of the given JPA query to the given action one entity at a time. Rows are read through a
+     * forward-only cursor and the persistence context is cleared every {@link #STREAM_FETCH_SIZE} entities, so memory
+     * usage does not grow with the size of the result. Meant to be called within a read-only transaction, as
+     * entities handed to the action may be detached afterwards.
+     *
+     * @param em     the entity manager the query was created with
+     * @param query  the query to stream
+     * @param action the callback invoked for each result
+     */
+    public static <T> void scroll(EntityManager em, TypedQuery<T> query, Consumer<? super T> action) {
+        query.setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+        try (Stream<T> results = query.getResultStream()) {
+            Iterator<T> iterator = results.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++count % STREAM_FETCH_SIZE == 0) {
+                    em.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Combine the ids and versions of the given entities into a single version number.
+     *
+     * @param entities the entities, in a stable order
+     * @return the combined version
+     * @see #versionOfRows(Iterable)
+     */
+    public static long versionOf(Iterable<? extends BaseEntity> entities) {
+        long version = 1;
+        for (BaseEntity entity : entities) {
+            long id = entity.isNew() ? 0 : entity.getId();
+            version = (version * VERSION_MULTIPLIER + id) * VERSION_MULTIPLIER + entity.getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Combine rows of ids and versions read from the database, in a stable order, into a single version number the
+     * way {@link #versionOf} combines entities. Null columns, e.g. of an outer join without match, count as 0.
+     *
+     * @param rows the rows of <code>Number</code>s to combine
+     * @return the combined version
+     */
+    public static long versionOfRows(Iterable<Object[]> rows) {
+        long version = 1;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                version = version * VERSION_MULTIPLIER + (value == null ? 0 : ((Number) value).longValue());
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Persist new and merge existing entities through the given entity manager, flushing and clearing the
+     * persistence context every {@link #WRITE_BATCH_SIZE} entities so that Hibernate can send the statements as JDBC
+     * batches and memory usage does not grow with the number of entities.
+     * <p>
+     * Existing entities overwrite the current state whatever their version, as with the JDBC repositories: batch
+     * clients do not send versions, so merging them would otherwise fail the optimistic locking check.
+     *
+     * @param em       the entity manager to save the entities with
+     * @param entities the entities to save
+     */
+    public static void saveAll(EntityManager em, Collection<? extends BaseEntity> entities) {
+        int count = 0;
+        for (BaseEntity entity : entities) {
+            if (entity.isNew()) {
+                em.persist(entity);
+            } else {
+                // loaded anyway by merge, so this costs no additional query
+                BaseEntity current = em.find(entity.getClass(), entity.getId());
+                if (current != null) {
+                    entity.setVersion(current.getVersion());
+                }
+                em.merge(entity);
+            }
+            if (++count % WRITE_BATCH_SIZE == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+    }
+
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.HsqlSequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.MySQLMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+
+/**
+ * Java config for non-sequential ids, active when <code>petclinic.id-generation</code> is <code>bit-reversed</code>.
+ * <p>
+ * New owners, pets, visits, vets, specialties and pet types then get the values of the shared
+ * <code>id_sequence</code> of the schema with their bits reversed (see {@link BitReversedIdIncrementer}) instead of
+ * the next value of their identity column: the JDBC repositories assign them with the incrementer bean, the JPA and
+ * Spring Data JPA ones with the {@link BitReversedSequenceGenerator}. The identity columns accept the assigned ids,
+ * so the same schema serves both modes, but a database should stay in one of them.
+ * <p>
+ * Both take <code>petclinic.id-generation.allocation-size</code> ids (50 by default, the increment of the
+ * <code>id_sequence</code> of the schema) per call to the database. On MySQL, whose <code>id_sequence</code> is a
+ * table, the JDBC incrementer updates it in a connection of its own, as Hibernate does, so that the caller's transaction
+ * does not hold its row lock until it commits.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.id-generation", havingValue = "bit-reversed")
+public class IdGenerationConfig {
+
+    @Value("${petclinic.id-generation.allocation-size:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}")
+    private int allocationSize;
+
+    @Bean
+    public HibernatePropertiesCustomizer bitReversedIdHibernatePropertiesCustomizer() {
+        return properties -> {
+            properties.put("hibernate.ejb.identifier_generator_strategy_provider",
+                new BitReversedSequenceGenerator.StrategyProvider());
+            properties.put(PooledSequenceGenerator.ALLOCATION_SIZE_SETTING, this.allocationSize);
+        };
+    }
+
+    @Bean
+    @Profile("hsqldb")
+    public DataFieldMaxValueIncrementer hsqldbIdIncrementer(DataSource dataSource) {
+        return new BitReversedIdIncrementer(
+            new HsqlSequenceMaxValueIncrementer(dataSource, BitReversedSequenceGenerator.SEQUENCE_NAME), this.allocationSize);
+    }
+
+    @Bean
+    @Profile("postgresql")
+    public DataFieldMaxValueIncrementer postgresqlIdIncrementer(DataSource dataSource) {
+        return new BitReversedIdIncrementer(
+            new PostgresSequenceMaxValueIncrementer(dataSource, BitReversedSequenceGenerator.SEQUENCE_NAME), this.allocationSize);
+    }
+
+    @Bean
+    @Profile("mysql")
+    public DataFieldMaxValueIncrementer mysqlIdIncrementer(DataSource dataSource) {
+        // the Spring incrementer caches the block itself, from the value after the one stored in the table while
+        // Hibernate starts from the stored value: step back so that both allocate the same blocks
+        MySQLMaxValueIncrementer table = new MySQLMaxValueIncrementer(dataSource,
+            BitReversedSequenceGenerator.SEQUENCE_NAME, "next_val") {
+            @Override
+            protected synchronized long getNextKey() throws DataAccessException {
+                return super.getNextKey() - 1;
+            }
+        };
+        table.setCacheSize(this.allocationSize);
+        table.setUseNewConnection(true);
+        return new BitReversedIdIncrementer(table);
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, in the spirit of HdrHistogram.
+ * <p>
+ * Values are counted in log-linear buckets: each power of two is split into {@value #SUB_BUCKET_COUNT} linear
+ * sub-buckets, so any recorded value is reported with a relative error below 1/{@value #SUB_BUCKET_COUNT} (about 3%)
+ * whatever its magnitude. Recording is a couple of shifts and a single atomic increment, with count and total kept
+ * in striped {@link LongAdder}s, so concurrent threads never block each other.
+ * <p>
+ * Reads are not atomic snapshots: a percentile computed while values are being recorded may miss the latest ones.
+ *
+ * @see CallMonitoringAspect
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // values below SUB_BUCKET_COUNT get a bucket each, then SUB_BUCKET_COUNT buckets per power of two up to 2^63
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        this.buckets.incrementAndGet(bucketIndex(value));
+        this.count.increment();
+        this.total.add(value);
+        this.max.accumulate(value);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getTotal() {
+        return this.total.sum();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public long getMean() {
+        long count = getCount();
+        return count > 0 ? getTotal() / count : 0;
+    }
+
+    /**
+     * Returns the highest value equivalent to the one at the given percentile, i.e. the upper bound of its bucket,
+     * or 0 when nothing has been recorded yet.
+     *
+     * @param percentile between 0 and 100, e.g. 99.9
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long recorded = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = this.buckets.get(i);
+            recorded += counts[i];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * recorded));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Count, mean, 50th, 99th and 99.9th percentiles and max, in this order, as reported by the monitoring endpoints.
+     */
+    public Map<String, Long> getSummary() {
+        Map<String, Long> summary = new LinkedHashMap<String, Long>();
+        summary.put("count", getCount());
+        summary.put("mean", getMean());
+        summary.put("p50", getValueAtPercentile(50));
+        summary.put("p99", getValueAtPercentile(99));
+        summary.put("p999", getValueAtPercentile(99.9));
+        summary.put("max", getMax());
+        return summary;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.reset();
+        this.total.reset();
+        this.max.reset();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> exponent) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + exponent * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = SUB_BUCKET_COUNT + (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Version of an owner together with its pets, their types and their visits for the JPA and Spring Data JPA
+ * repositories, read without loading the entities.
+ * <p>
+ * The ids and versions of the owner graph are read by two queries ordered by id and folded in order by
+ * {@link EntityUtils#versionOfRows}, so that the version changes whenever any of the entities is saved, added or
+ * deleted.
+ */
+public final class OwnerGraphVersion {
+
+    private OwnerGraphVersion() {
+    }
+
+    /**
+     * @return the version, or <code>null</code> if the owner does not exist
+     */
+    public static Long find(EntityManager em, int id) {
+        List<Object[]> rows = new ArrayList<Object[]>(em.createQuery(
+            "SELECT owner.version, pet.id, pet.version, type.id, type.version FROM Owner owner " +
+                "LEFT JOIN owner.pets pet LEFT JOIN pet.type type WHERE owner.id = :id ORDER BY pet.id", Object[].class)
+            .setParameter("id", id)
+            .getResultList());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        rows.addAll(em.createQuery(
+            "SELECT visit.id, visit.version FROM Visit visit WHERE visit.pet.owner.id = :id ORDER BY visit.id", Object[].class)
+            .setParameter("id", id)
+            .getResultList());
+        return EntityUtils.versionOfRows(rows);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Query syntax of the owner search, shared by the repositories and the {@link OwnerSearchIndex}.
+ * <p>
+ * A query is split on whitespace into at most {@link #MAX_TERMS} lower-cased terms; an owner matches when every term
+ * is a prefix of its first name, last name or city, ignoring case, or of its telephone.
+ */
+public final class OwnerSearch {
+
+    public static final int MAX_TERMS = 5;
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private OwnerSearch() {
+    }
+
+    /**
+     * The distinct terms of the query, lower-cased, or an empty list for a blank query.
+     */
+    public static List<String> terms(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!terms.contains(term) && terms.size() < MAX_TERMS) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * The <code>LIKE</code> pattern matching the values starting with the given term, with its wildcards escaped.
+     */
+    public static String likePattern(String term) {
+        StringBuilder pattern = new StringBuilder(term.length() + 2);
+        for (char c : term.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * The SQL or JPQL condition matching every term, bound as the <code>term0</code>, <code>term1</code>, ...
+     * parameters with their {@link #likePattern}.
+     * <p>
+     * Names are compared in lower case, which keeps the database from using a plain index on the column: with
+     * <code>caseInsensitiveCollation</code>, for databases whose collation already ignores case (MySQL), the columns
+     * are compared as they are so that their indexes serve the prefix searches.
+     *
+     * @param nameColumns the first name, last name and city columns
+     */
+    public static String condition(List<String> nameColumns, String telephoneColumn, int termCount,
+                                   boolean caseInsensitiveCollation) {
+        StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < termCount; i++) {
+            String like = " LIKE :term" + i + " ESCAPE '" + LIKE_ESCAPE + "'";
+            condition.append(i == 0 ? "(" : " AND (");
+            for (String column : nameColumns) {
+                condition.append(caseInsensitiveCollation ? column : "LOWER(" + column + ")").append(like).append(" OR ");
+            }
+            condition.append(telephoneColumn).append(like).append(")");
+        }
+        return condition.toString();
+    }
+
+}
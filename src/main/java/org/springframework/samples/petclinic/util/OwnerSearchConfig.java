@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+
+/**
+ * Java config for the in-memory {@link OwnerSearchIndex}, active in the HSQLDB profile when
+ * <code>petclinic.owner-search.trie</code> is <code>true</code>.
+ * <p>
+ * HSQLDB has no index able to serve the case-insensitive prefix searches, so every search scans the owners; the trie
+ * answers them from memory instead. PostgreSQL and MySQL index the searched columns in their schemas.
+ */
+@Configuration
+@Profile("hsqldb")
+@ConditionalOnProperty(name = "petclinic.owner-search.trie", havingValue = "true")
+public class OwnerSearchConfig {
+
+    @Bean
+    public OwnerSearchIndex ownerSearchIndex(OwnerRepository ownerRepository) {
+        return new OwnerSearchIndex(ownerRepository);
+    }
+
+}
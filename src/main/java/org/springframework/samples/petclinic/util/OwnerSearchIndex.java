@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.SimpleOwnerSummary;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory prefix index of the owners, answering the owner search without a query for databases that can not index
+ * it (HSQLDB).
+ * <p>
+ * The first name, last name, city and telephone of every owner are kept, lower-cased, in a trie built from the
+ * repository on the first search after an {@link #invalidate}; the terms of a search select the subtries of their
+ * prefixes. Like {@link TransactionAwareReferenceDataCache}, the index only ever holds committed data: it is bypassed
+ * within read-write transactions, and invalidations are applied immediately and once more after the transaction
+ * completes. An index built from data read before an invalidation is never published.
+ *
+ * @see OwnerSearchConfig
+ */
+public class OwnerSearchIndex {
+
+    private static final Comparator<OwnerSummary> ORDER = Comparator
+        .comparing(OwnerSummary::getLastName, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(OwnerSummary::getFirstName)
+        .thenComparing(OwnerSummary::getId);
+
+    private final OwnerRepository ownerRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Trie trie;
+
+    public OwnerSearchIndex(OwnerRepository ownerRepository) {
+        this.ownerRepository = ownerRepository;
+    }
+
+    /**
+     * Searches the owners as {@link OwnerRepository#search} does, from the index unless a read-write transaction is
+     * active.
+     */
+    public Collection<OwnerSummary> search(List<String> terms, int limit) {
+        if (isReadWriteTransactionActive()) {
+            return this.ownerRepository.search(terms, limit);
+        }
+        long generation = this.generation.get();
+        Trie current = this.trie;
+        if (current == null || current.generation != generation) {
+            // read before the owners: a trie built across an invalidation is published, but never used
+            current = new Trie(generation, this.ownerRepository.findAll());
+            this.trie = current;
+        }
+        return current.search(terms, limit);
+    }
+
+    /**
+     * Drops the index, to be rebuilt from the data store on the next search.
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+        this.trie = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    trie = null;
+                }
+            });
+        }
+    }
+
+    private static boolean isReadWriteTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static final class Trie {
+
+        private final long generation;
+
+        private final Node root = new Node();
+
+        Trie(long generation, Collection<Owner> owners) {
+            this.generation = generation;
+            for (Owner owner : owners) {
+                OwnerSummary summary = new SimpleOwnerSummary(owner.getId(), owner.getFirstName(), owner.getLastName(),
+                    owner.getCity(), (long) owner.getPets().size());
+                add(owner.getFirstName(), summary);
+                add(owner.getLastName(), summary);
+                add(owner.getCity(), summary);
+                add(owner.getTelephone(), summary);
+            }
+        }
+
+        private void add(String key, OwnerSummary summary) {
+            if (key == null) {
+                return;
+            }
+            Node node = this.root;
+            for (char c : key.toLowerCase(Locale.ROOT).toCharArray()) {
+                node = node.children.computeIfAbsent(c, k -> new Node());
+            }
+            node.owners.add(summary);
+        }
+
+        Collection<OwnerSummary> search(List<String> terms, int limit) {
+            Set<OwnerSummary> matches = null;
+            for (String term : terms) {
+                Set<OwnerSummary> termMatches = Collections.newSetFromMap(new IdentityHashMap<>());
+                Node node = find(term);
+                if (node != null) {
+                    node.collect(termMatches);
+                }
+                if (matches == null) {
+                    matches = termMatches;
+                } else {
+                    matches.retainAll(termMatches);
+                }
+                if (matches.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            if (matches == null) {
+                return Collections.emptyList();
+            }
+            List<OwnerSummary> result = new ArrayList<>(matches);
+            result.sort(ORDER);
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        }
+
+        private Node find(String prefix) {
+            Node node = this.root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node;
+        }
+
+    }
+
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+
+        private final List<OwnerSummary> owners = new ArrayList<>(1);
+
+        void collect(Set<OwnerSummary> matches) {
+            matches.addAll(this.owners);
+            for (Node child : this.children.values()) {
+                child.collect(matches);
+            }
+        }
+
+    }
+
+}
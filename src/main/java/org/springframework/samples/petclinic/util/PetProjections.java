@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+
+/**
+ * Sparse fieldset queries of pets for the JPA and Spring Data JPA repositories.
+ * <p>
+ * Only the columns of the requested properties are selected, as scalars: the pet type and the owner are only joined
+ * when requested, and the visits are only read, by a second query on the same criteria, when requested. The pets
+ * returned are detached copies holding nothing but the id, name, birth date and the requested properties.
+ */
+public final class PetProjections {
+
+    public static final String TYPE = "type";
+
+    public static final String OWNER = "owner";
+
+    public static final String VISITS = "visits";
+
+    private PetProjections() {
+    }
+
+    /**
+     * The criteria of the pet searches in JPQL, referring to the pet as <code>pet</code>.
+     */
+    public static QueryCriteria criteria(Integer typeId, Integer ownerId, Date bornAfter, Date bornBefore) {
+        return new QueryCriteria()
+            .and("pet.type.id = :typeId", "typeId", typeId)
+            .and("pet.owner.id = :ownerId", "ownerId", ownerId)
+            .and("pet.birthDate > :bornAfter", "bornAfter", bornAfter)
+            .and("pet.birthDate < :bornBefore", "bornBefore", bornBefore);
+    }
+
+    /**
+     * Reads the pets matching the criteria, which refer to the pet as <code>pet</code>, ordered by id.
+     *
+     * @param properties the top level properties of the pets to read: the id, name and birth date are always read,
+     *                   the {@link #TYPE}, {@link #OWNER} and {@link #VISITS} only when among them
+     */
+    public static List<Pet> find(EntityManager em, Set<String> properties, QueryCriteria criteria) {
+        boolean withType = properties.contains(TYPE);
+        boolean withOwner = properties.contains(OWNER);
+        StringBuilder select = new StringBuilder("SELECT pet.id, pet.name, pet.birthDate");
+        if (withType) {
+            select.append(", type.id, type.name");
+        }
+        if (withOwner) {
+            select.append(", owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone");
+        }
+        select.append(" FROM Pet pet");
+        if (withType) {
+            select.append(" JOIN pet.type type");
+        }
+        if (withOwner) {
+            select.append(" JOIN pet.owner owner");
+        }
+        List<Pet> pets = new ArrayList<>();
+        for (Object[] row : criteria.createQuery(em, select.toString(), "ORDER BY pet.id", Object[].class).getResultList()) {
+            Pet pet = new Pet();
+            pet.setId((Integer) row[0]);
+            pet.setName((String) row[1]);
+            pet.setBirthDate((Date) row[2]);
+            int column = 3;
+            if (withType) {
+                PetType type = new PetType();
+                type.setId((Integer) row[column++]);
+                type.setName((String) row[column++]);
+                pet.setType(type);
+            }
+            if (withOwner) {
+                Owner owner = new Owner();
+                owner.setId((Integer) row[column++]);
+                owner.setFirstName((String) row[column++]);
+                owner.setLastName((String) row[column++]);
+                owner.setAddress((String) row[column++]);
+                owner.setCity((String) row[column++]);
+                owner.setTelephone((String) row[column]);
+                pet.setOwner(owner);
+            }
+            pets.add(pet);
+        }
+        if (properties.contains(VISITS) && !pets.isEmpty()) {
+            EntityIndex<Pet> petsById = EntityUtils.indexById(pets, Pet.class);
+            for (Object[] row : criteria.createQuery(em,
+                "SELECT pet.id, visit.id, visit.date, visit.description FROM Visit visit JOIN visit.pet pet",
+                "ORDER BY visit.id", Object[].class).getResultList()) {
+                Visit visit = new Visit();
+                visit.setId((Integer) row[1]);
+                visit.setDate((Date) row[2]);
+                visit.setDescription((String) row[3]);
+                petsById.getById((Integer) row[0]).addVisit(visit);
+            }
+        }
+        return pets;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Java config for sequence generated ids in the JPA and Spring Data JPA profiles, active when
+ * <code>petclinic.id-generation</code> is <code>pooled-sequence</code>.
+ * <p>
+ * New entities then take their ids from the <code>&lt;table&gt;_seq</code> sequences of the schema through the
+ * {@link PooledSequenceGenerator}, <code>petclinic.id-generation.allocation-size</code> ids (50 by default, the
+ * increment of the sequences of the schema) per sequence call, so that their inserts are batched. The JDBC profile
+ * keeps the identity columns, as it already batches inserts and reads the generated keys back.
+ */
+@Configuration
+@Profile({"jpa", "spring-data-jpa"})
+@ConditionalOnProperty(name = "petclinic.id-generation", havingValue = "pooled-sequence")
+public class PooledSequenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer pooledSequenceHibernatePropertiesCustomizer(
+        @Value("${petclinic.id-generation.allocation-size:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+        return properties -> {
+            properties.put("hibernate.ejb.identifier_generator_strategy_provider",
+                new PooledSequenceGenerator.StrategyProvider());
+            properties.put(PooledSequenceGenerator.ALLOCATION_SIZE_SETTING, allocationSize);
+        };
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.jpa.spi.IdentifierGeneratorStrategyProvider;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Hibernate identifier generator for the JPA repositories taking the ids of each table from a sequence of its own,
+ * <code>&lt;table&gt;_seq</code> (a table of that name on databases without sequences), with the pooled optimizer:
+ * one sequence call hands out a whole block of {@link #ALLOCATION_SIZE_SETTING allocation size} ids.
+ * <p>
+ * Unlike identity columns, whose ids are only known once the row is inserted, this lets Hibernate send the inserts of
+ * a flush as JDBC batches of <code>hibernate.jdbc.batch_size</code> statements. The sequences of the schema start at
+ * {@link #INITIAL_VALUE}, above the ids of the sample data, and must be incremented by the allocation size: Hibernate
+ * refuses to start otherwise.
+ * <p>
+ * The entities keep their <code>@GeneratedValue(strategy = IDENTITY)</code> mapping; the {@link StrategyProvider}
+ * replaces the <code>identity</code> strategy with this generator when <code>petclinic.id-generation</code> is
+ * <code>pooled-sequence</code> (see {@link PooledSequenceConfig}).
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    /**
+     * Hibernate setting with the number of ids allocated per sequence call.
+     */
+    public static final String ALLOCATION_SIZE_SETTING = "petclinic.id.allocation_size";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    public static final int INITIAL_VALUE = 100;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        if (!params.containsKey(SEQUENCE_PARAM)) {
+            params.setProperty(SEQUENCE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE) + "_seq");
+        }
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize(serviceRegistry)));
+        params.setProperty(INITIAL_PARAM, String.valueOf(INITIAL_VALUE));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+
+    /**
+     * Number of ids allocated per sequence call, the {@link #ALLOCATION_SIZE_SETTING} or
+     * {@link #DEFAULT_ALLOCATION_SIZE}.
+     */
+    static int allocationSize(ServiceRegistry serviceRegistry) {
+        // set as an Integer by the configs, or as a String through spring.jpa.properties
+        return serviceRegistry.getService(ConfigurationService.class)
+            .getSetting(ALLOCATION_SIZE_SETTING, value -> Integer.valueOf(value.toString()), DEFAULT_ALLOCATION_SIZE);
+    }
+
+    /**
+     * Maps the <code>identity</code> generation strategy to the {@link PooledSequenceGenerator}.
+     */
+    public static class StrategyProvider implements IdentifierGeneratorStrategyProvider {
+
+        @Override
+        public Map<String, Class<?>> getStrategies() {
+            return Collections.singletonMap("identity", PooledSequenceGenerator.class);
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.sql.Types;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+/**
+ * Conjunction of the optional criteria of a search query, for JPQL and SQL alike.
+ * <p>
+ * The criteria given a <code>null</code> value are left out and the others are appended as conditions on bound
+ * parameters, never inlined: a query with <i>n</i> optional criteria has at most 2<sup><i>n</i></sup> distinct
+ * statements, which keeps the query plan caches of Hibernate, of the JDBC driver and of the database small.
+ */
+public final class QueryCriteria {
+
+    private final StringBuilder conditions = new StringBuilder();
+
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    /**
+     * Adds the condition, which refers to the named parameter, unless the value is <code>null</code>.
+     */
+    public QueryCriteria and(String condition, String parameter, Object value) {
+        if (value != null) {
+            this.conditions.append(this.conditions.length() == 0 ? " WHERE " : " AND ").append(condition);
+            this.parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    /**
+     * The <code>WHERE</code> clause of the conditions added, with a leading space, or an empty string if none.
+     */
+    public String where() {
+        return this.conditions.toString();
+    }
+
+    /**
+     * Creates the JPQL query made of the select clause, the conditions and the order by clause, with its parameters
+     * bound.
+     */
+    public <T> TypedQuery<T> createQuery(EntityManager em, String select, String orderBy, Class<T> resultClass) {
+        TypedQuery<T> query = em.createQuery(select + where() + " " + orderBy, resultClass);
+        this.parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    /**
+     * The parameters of the conditions for a <code>NamedParameterJdbcTemplate</code>, dates being bound as SQL dates.
+     */
+    public MapSqlParameterSource sqlParameters() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        this.parameters.forEach((name, value) -> {
+            if (value instanceof Date) {
+                parameters.addValue(name, value, Types.DATE);
+            } else {
+                parameters.addValue(name, value);
+            }
+        });
+        return parameters;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Replica databases of the <code>petclinic.datasource.replicas.*</code> properties, see {@link ReplicaRoutingConfig}.
+ */
+@ConfigurationProperties("petclinic.datasource.replicas")
+public class ReplicaDataSourceProperties {
+
+    /**
+     * JDBC URLs of the replicas.
+     */
+    private List<String> urls = new ArrayList<>();
+
+    /**
+     * Login of the replicas, if not that of the primary.
+     */
+    private String username;
+
+    private String password;
+
+    private ReplicaRoutingDataSource.Strategy strategy = ReplicaRoutingDataSource.Strategy.ROUND_ROBIN;
+
+    public List<String> getUrls() {
+        return this.urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public String getUsername() {
+        return this.username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return this.password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public ReplicaRoutingDataSource.Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    public void setStrategy(ReplicaRoutingDataSource.Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Java config for sending read-only transactions to replica databases, active when
+ * <code>petclinic.datasource.replicas.urls</code> is set.
+ * <p>
+ * The primary pool is configured by the usual <code>spring.datasource.*</code> properties, in place of the one Spring
+ * Boot would create; it is not a bean of its own, as Spring Boot initializes the database of each data source bean.
+ * Each replica gets a pool with the same settings, its own URL and, if set, the
+ * <code>petclinic.datasource.replicas.username</code> and <code>password</code>; the
+ * <code>petclinic.datasource.replicas.strategy</code> is <code>round-robin</code> (the default) or
+ * <code>least-loaded</code>. The application {@link DataSource} is then a {@link ReplicaRoutingDataSource}, so all
+ * repository profiles use the replicas for the <code>@Transactional(readOnly = true)</code> methods of the clinic
+ * service.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.datasource.replicas.urls")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties,
+                                               ReplicaDataSourceProperties replicaProperties, Environment environment) {
+        HikariDataSource primaryDataSource =
+            properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaryDataSource));
+        List<HikariDataSource> replicas = new ArrayList<>();
+        String poolName =
+            StringUtils.hasText(primaryDataSource.getPoolName()) ? primaryDataSource.getPoolName() : "petclinic";
+        for (String url : replicaProperties.getUrls()) {
+            HikariDataSource replica = new HikariDataSource();
+            // pool settings and driver properties of the primary; the pool starts on first use
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url);
+            replica.setPoolName(poolName + "-replica-" + replicas.size());
+            if (replicaProperties.getUsername() != null) {
+                replica.setUsername(replicaProperties.getUsername());
+                replica.setPassword(replicaProperties.getPassword());
+            }
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, replicaProperties.getStrategy());
+    }
+
+}
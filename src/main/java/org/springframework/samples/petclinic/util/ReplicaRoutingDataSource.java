@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * {@link DataSource} which sends the connections of read-only transactions to one of several replica databases and
+ * all other connections, including those taken outside of any transaction, to the primary database.
+ * <p>
+ * A transaction is only known to be read-only once it has begun, after the transaction manager has asked for its
+ * connection, so connections are lazy proxies that pick their database at the first statement. The pools of the
+ * primary and of the replicas are closed with this data source.
+ *
+ * @see ReplicaRoutingConfig
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+
+    /**
+     * How the replica of a read-only transaction is chosen.
+     */
+    public enum Strategy {
+
+        /**
+         * Each replica in turn.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * The replica with the fewest connections in use and threads waiting for one, taking turns on ties.
+         */
+        LEAST_LOADED
+    }
+
+    private final HikariDataSource primary;
+
+    private final List<HikariDataSource> replicas;
+
+    private final Strategy strategy;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Strategy strategy) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.strategy = strategy;
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return determineReplica();
+            }
+        };
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+    }
+
+    /**
+     * Returns the pools of the primary and of the replicas.
+     */
+    public List<HikariDataSource> getPools() {
+        List<HikariDataSource> pools = new ArrayList<>();
+        pools.add(this.primary);
+        pools.addAll(this.replicas);
+        return pools;
+    }
+
+    /**
+     * Returns the index of the replica to use, or <code>null</code> for the primary.
+     */
+    private Integer determineReplica() {
+        if (this.replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        int first = Math.floorMod(this.next.getAndIncrement(), this.replicas.size());
+        if (this.strategy == Strategy.ROUND_ROBIN) {
+            return first;
+        }
+        int leastLoaded = first;
+        int lowestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < this.replicas.size(); i++) {
+            int candidate = (first + i) % this.replicas.size();
+            int load = load(this.replicas.get(candidate));
+            if (load < lowestLoad) {
+                leastLoaded = candidate;
+                lowestLoad = load;
+            }
+        }
+        return leastLoaded;
+    }
+
+    private static int load(HikariDataSource replica) {
+        // not started until its first connection
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool != null ? pool.getActiveConnections() + pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    @Override
+    public void destroy() {
+        for (HikariDataSource pool : getPools()) {
+            pool.close();
+        }
+    }
+
+}
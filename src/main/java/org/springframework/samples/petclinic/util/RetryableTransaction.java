@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a <code>@Transactional</code> method to be run again, in a new transaction, when the database aborts its
+ * transaction with a serialization failure (SQLSTATE <code>40001</code>), as serializable databases do when concurrent
+ * transactions conflict. Attempts are spaced by a random backoff of up to {@link #initialBackoff} milliseconds,
+ * doubling on each attempt up to {@link #maxBackoff}.
+ * <p>
+ * Only the outermost transaction is retried: a method called within an existing transaction fails as usual, for its
+ * caller to retry.
+ *
+ * @see TransactionRetryAspect
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryableTransaction {
+
+    /**
+     * Maximum number of attempts, including the first one.
+     */
+    int maxAttempts() default 5;
+
+    /**
+     * Upper bound of the backoff before the second attempt, in milliseconds.
+     */
+    long initialBackoff() default 20;
+
+    /**
+     * Upper bound of the backoff before any attempt, in milliseconds.
+     */
+    long maxBackoff() default 1000;
+
+}
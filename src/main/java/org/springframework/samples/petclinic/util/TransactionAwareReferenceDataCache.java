@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link Cache} decorator that only ever holds committed data.
+ * <p>
+ * Within a read-write transaction the cache is bypassed: lookups miss and nothing is stored, so a transaction sees
+ * its own uncommitted changes and never publishes them to other callers. Evictions are applied immediately and once
+ * more after the transaction completes, so that entries loaded concurrently from the data committed before are
+ * dropped as well.
+ *
+ * @see ApplicationCacheConfig
+ */
+public class TransactionAwareReferenceDataCache implements Cache {
+
+    private final Cache targetCache;
+
+    public TransactionAwareReferenceDataCache(Cache targetCache) {
+        this.targetCache = targetCache;
+    }
+
+    @Override
+    public String getName() {
+        return this.targetCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.targetCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return isReadWriteTransactionActive() ? null : this.targetCache.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return isReadWriteTransactionActive() ? null : this.targetCache.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (isReadWriteTransactionActive()) {
+            try {
+                return valueLoader.call();
+            } catch (Exception ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+        }
+        return this.targetCache.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!isReadWriteTransactionActive()) {
+            this.targetCache.put(key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return isReadWriteTransactionActive() ? null : this.targetCache.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.targetCache.evict(key);
+        afterCompletion(() -> this.targetCache.evict(key));
+    }
+
+    @Override
+    public void clear() {
+        this.targetCache.clear();
+        afterCompletion(this.targetCache::clear);
+    }
+
+    private static boolean isReadWriteTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+}
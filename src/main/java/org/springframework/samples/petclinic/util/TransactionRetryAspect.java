@@ -0,0 +1,298 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.persistence.CascadeType;
+import javax.persistence.OneToMany;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Hibernate;
+import org.springframework.core.Ordered;
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Aspect running {@link RetryableTransaction} methods again after a serialization failure, with exponential backoff
+ * and full jitter: the wait before attempt <i>n</i> + 1 is random between 0 and
+ * <code>min(maxBackoff, initialBackoff * 2^(n - 1))</code> milliseconds, so that the conflicting transactions do not
+ * collide again.
+ * <p>
+ * It is ordered before the transaction interceptor, so that each attempt runs in a new transaction. The id and version
+ * of the {@link BaseEntity} arguments, of the entities in collection arguments and of the children they cascade to
+ * are put back before each retry, as the failed attempt may have assigned them although its transaction was rolled
+ * back. Retries are
+ * counted per method; the counts are exported as the <code>petclinic:type=TransactionRetry</code> MBean and through
+ * the <code>/api/transactionretries</code> endpoint.
+ */
+@ManagedResource("petclinic:type=TransactionRetry")
+@Aspect
+public class TransactionRetryAspect implements Ordered {
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+
+    private final ConcurrentMap<String, RetryStatistics> statistics = new ConcurrentHashMap<String, RetryStatistics>();
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @ManagedOperation
+    public void reset() {
+        for (RetryStatistics methodStatistics : this.statistics.values()) {
+            methodStatistics.reset();
+        }
+    }
+
+    /**
+     * Total number of attempts made again, all methods together.
+     */
+    @ManagedAttribute
+    public long getRetryCount() {
+        return this.statistics.values().stream().mapToLong(RetryStatistics::getRetries).sum();
+    }
+
+    /**
+     * Total number of calls which still failed after their last attempt, all methods together.
+     */
+    @ManagedAttribute
+    public long getExhaustedCount() {
+        return this.statistics.values().stream().mapToLong(RetryStatistics::getExhausted).sum();
+    }
+
+    /**
+     * Retry statistics by method, sorted by method name, for the methods which have been retried at least once.
+     */
+    public SortedMap<String, RetryStatistics> getStatistics() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, RetryStatistics>(this.statistics));
+    }
+
+
+    @Around("@annotation(retry)")
+    public Object invoke(ProceedingJoinPoint joinPoint, RetryableTransaction retry) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        List<EntityState> argumentStates = EntityState.of(joinPoint.getArgs());
+        RetryStatistics methodStatistics = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (methodStatistics != null) {
+                    methodStatistics.recovered.increment();
+                }
+                return result;
+            } catch (Throwable ex) {
+                if (!isSerializationFailure(ex)) {
+                    throw ex;
+                }
+                if (methodStatistics == null) {
+                    methodStatistics = statistics(((MethodSignature) joinPoint.getSignature()).getMethod());
+                }
+                if (attempt >= retry.maxAttempts()) {
+                    methodStatistics.exhausted.increment();
+                    throw ex;
+                }
+                methodStatistics.retries.increment();
+                for (EntityState argumentState : argumentStates) {
+                    argumentState.restore();
+                }
+                try {
+                    Thread.sleep(backoff(attempt, retry));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Random backoff in milliseconds before the attempt following the given one.
+     */
+    static long backoff(int attempt, RetryableTransaction retry) {
+        long ceiling = retry.initialBackoff() << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > retry.maxBackoff()) {
+            ceiling = retry.maxBackoff();
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Whether the given exception, or one of its causes, reports a serialization failure. JDBC drivers signal it with
+     * SQLSTATE <code>40001</code>, which Spring translates to a {@link CannotSerializeTransactionException} for the
+     * databases it knows, while JPA providers may wrap it in their own exceptions.
+     */
+    static boolean isSerializationFailure(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotSerializeTransactionException) {
+                return true;
+            }
+            if (cause instanceof SQLException && SERIALIZATION_FAILURE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RetryStatistics statistics(Method method) {
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        return this.statistics.computeIfAbsent(name, key -> new RetryStatistics());
+    }
+
+
+    /**
+     * Id and version of an entity argument, or of an entity reachable from the arguments, before the first attempt.
+     */
+    private static final class EntityState {
+
+        private final BaseEntity entity;
+
+        private final Integer id;
+
+        private final int version;
+
+        private EntityState(BaseEntity entity) {
+            this.entity = entity;
+            this.id = entity.getId();
+            this.version = entity.getVersion();
+        }
+
+        private static final ConcurrentMap<Class<?>, List<Field>> CASCADED_FIELDS =
+            new ConcurrentHashMap<Class<?>, List<Field>>();
+
+        /**
+         * States of the entities passed as arguments or in collection arguments, and of the children they cascade
+         * persist or merge to, which the repositories save along with them.
+         */
+        static List<EntityState> of(Object[] args) {
+            Map<BaseEntity, EntityState> states = new IdentityHashMap<BaseEntity, EntityState>();
+            for (Object arg : args) {
+                collect(arg, states);
+            }
+            return new ArrayList<EntityState>(states.values());
+        }
+
+        private static void collect(Object value, Map<BaseEntity, EntityState> states) {
+            if (value instanceof Collection) {
+                // a collection Hibernate has not loaded holds no entity the attempt may have changed
+                if (Hibernate.isInitialized(value)) {
+                    for (Object element : (Collection<?>) value) {
+                        collect(element, states);
+                    }
+                }
+            } else if (value instanceof BaseEntity && !states.containsKey(value)) {
+                BaseEntity entity = (BaseEntity) value;
+                states.put(entity, new EntityState(entity));
+                for (Field field : cascadedFields(entity.getClass())) {
+                    collect(ReflectionUtils.getField(field, entity), states);
+                }
+            }
+        }
+
+        private static List<Field> cascadedFields(Class<?> type) {
+            return CASCADED_FIELDS.computeIfAbsent(type, key -> {
+                List<Field> fields = new ArrayList<Field>();
+                ReflectionUtils.doWithFields(key, field -> {
+                    ReflectionUtils.makeAccessible(field);
+                    fields.add(field);
+                }, field -> {
+                    OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+                    if (oneToMany == null) {
+                        return false;
+                    }
+                    List<CascadeType> cascade = Arrays.asList(oneToMany.cascade());
+                    return cascade.contains(CascadeType.ALL) || cascade.contains(CascadeType.PERSIST)
+                        || cascade.contains(CascadeType.MERGE);
+                });
+                return fields;
+            });
+        }
+
+        void restore() {
+            this.entity.setId(this.id);
+            this.entity.setVersion(this.version);
+        }
+
+    }
+
+
+    /**
+     * Retry counts of one method.
+     */
+    public static class RetryStatistics {
+
+        private final LongAdder retries = new LongAdder();
+
+        private final LongAdder recovered = new LongAdder();
+
+        private final LongAdder exhausted = new LongAdder();
+
+        /**
+         * Number of attempts made again.
+         */
+        public long getRetries() {
+            return this.retries.sum();
+        }
+
+        /**
+         * Number of calls which succeeded after at least one retry.
+         */
+        public long getRecovered() {
+            return this.recovered.sum();
+        }
+
+        /**
+         * Number of calls which still failed after their last attempt.
+         */
+        public long getExhausted() {
+            return this.exhausted.sum();
+        }
+
+        void reset() {
+            this.retries.reset();
+            this.recovered.reset();
+            this.exhausted.reset();
+        }
+
+    }
+
+}
@@ -12,13 +12,15 @@ DROP TABLE users IF EXISTS;
 CREATE TABLE vets (
   id         INTEGER IDENTITY PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR(30)
+  last_name  VARCHAR(30),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
   id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  name VARCHAR(80),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX specialties_name ON specialties (name);
 
@@ -31,7 +33,8 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIG
 
 CREATE TABLE types (
   id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  name VARCHAR(80),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX types_name ON types (name);
 
@@ -41,7 +44,8 @@ CREATE TABLE owners (
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX owners_last_name ON owners (last_name);
 
@@ -50,7 +54,8 @@ CREATE TABLE pets (
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER NOT NULL
+  owner_id   INTEGER NOT NULL,
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
@@ -60,10 +65,12 @@ CREATE TABLE visits (
   id          INTEGER IDENTITY PRIMARY KEY,
   pet_id      INTEGER NOT NULL,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
 CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_visit_date_pet_id ON visits (visit_date, pet_id);
 
 CREATE  TABLE users (
   username    VARCHAR(20) NOT NULL ,
@@ -80,3 +87,23 @@ CREATE TABLE roles (
 ALTER TABLE roles ADD CONSTRAINT fk_username FOREIGN KEY (username) REFERENCES users (username);
 CREATE INDEX fk_username_idx ON roles (username);
 
+
+-- source of the bit-reversed ids of petclinic.id-generation=bit-reversed, each call allocates a block of 50 ids
+DROP SEQUENCE id_sequence IF EXISTS;
+CREATE SEQUENCE id_sequence AS INTEGER START WITH 1 INCREMENT BY 50;
+
+-- sources of the ids of petclinic.id-generation=pooled-sequence (JPA), each call allocates a block of 50 ids
+DROP SEQUENCE vets_seq IF EXISTS;
+CREATE SEQUENCE vets_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+DROP SEQUENCE specialties_seq IF EXISTS;
+CREATE SEQUENCE specialties_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+DROP SEQUENCE types_seq IF EXISTS;
+CREATE SEQUENCE types_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+DROP SEQUENCE owners_seq IF EXISTS;
+CREATE SEQUENCE owners_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+DROP SEQUENCE pets_seq IF EXISTS;
+CREATE SEQUENCE pets_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+DROP SEQUENCE visits_seq IF EXISTS;
+CREATE SEQUENCE visits_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+DROP SEQUENCE roles_seq IF EXISTS;
+CREATE SEQUENCE roles_seq AS INTEGER START WITH 100 INCREMENT BY 50;
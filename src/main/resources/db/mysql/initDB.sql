@@ -12,12 +12,14 @@ CREATE TABLE IF NOT EXISTS vets (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
+  version INT NOT NULL DEFAULT 0,
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS specialties (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  version INT NOT NULL DEFAULT 0,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -32,6 +34,7 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 CREATE TABLE IF NOT EXISTS types (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  version INT NOT NULL DEFAULT 0,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -42,7 +45,11 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  version INT NOT NULL DEFAULT 0,
+  INDEX(last_name),
+  INDEX(first_name),
+  INDEX(city),
+  INDEX(telephone)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -51,6 +58,7 @@ CREATE TABLE IF NOT EXISTS pets (
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED NOT NULL,
+  version INT NOT NULL DEFAULT 0,
   INDEX(name),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
@@ -61,6 +69,8 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT(4) UNSIGNED NOT NULL,
   visit_date DATE,
   description VARCHAR(255),
+  version INT NOT NULL DEFAULT 0,
+  INDEX(visit_date, pet_id),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
 
@@ -80,3 +90,27 @@ CREATE TABLE IF NOT EXISTS roles (
   KEY fk_username_idx (username),
   CONSTRAINT fk_username FOREIGN KEY (username) REFERENCES users (username)
 ) engine=InnoDB;
+
+-- source of the bit-reversed ids of petclinic.id-generation=bit-reversed (a table, MySQL has no sequences), advanced
+-- by the allocation size in a transaction of its own
+CREATE TABLE IF NOT EXISTS id_sequence (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+
+INSERT INTO id_sequence (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM id_sequence);
+
+-- sources of the ids of petclinic.id-generation=pooled-sequence (JPA), tables advanced by Hibernate by the allocation size
+CREATE TABLE IF NOT EXISTS vets_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO vets_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM vets_seq);
+CREATE TABLE IF NOT EXISTS specialties_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO specialties_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM specialties_seq);
+CREATE TABLE IF NOT EXISTS types_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO types_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM types_seq);
+CREATE TABLE IF NOT EXISTS owners_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO owners_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM owners_seq);
+CREATE TABLE IF NOT EXISTS pets_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO pets_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM pets_seq);
+CREATE TABLE IF NOT EXISTS visits_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO visits_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM visits_seq);
+CREATE TABLE IF NOT EXISTS roles_seq (next_val BIGINT NOT NULL) engine=InnoDB;
+INSERT INTO roles_seq (next_val) SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM roles_seq);
@@ -2,6 +2,7 @@ CREATE TABLE IF NOT EXISTS vets (
   id SERIAL,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
+  version INT NOT NULL DEFAULT 0,
   CONSTRAINT pk_vets PRIMARY KEY (id)
 );
 
@@ -13,6 +14,7 @@ ALTER SEQUENCE vets_id_seq RESTART WITH 100;
 CREATE TABLE IF NOT EXISTS specialties (
   id SERIAL,
   name VARCHAR(80),
+  version INT NOT NULL DEFAULT 0,
   CONSTRAINT pk_specialties PRIMARY KEY (id)
 );
 
@@ -34,6 +36,7 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 CREATE TABLE IF NOT EXISTS types (
   id SERIAL,
   name VARCHAR(80),
+  version INT NOT NULL DEFAULT 0,
   CONSTRAINT pk_types PRIMARY KEY (id)
 );
 
@@ -48,11 +51,19 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
+  version INT NOT NULL DEFAULT 0,
   CONSTRAINT pk_owners PRIMARY KEY (id)
 );
 
 CREATE INDEX IF NOT EXISTS idx_owners_last_name ON owners (last_name);
 
+-- trigram indexes serving the case-insensitive LIKE conditions of the owner search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_owners_first_name_trgm ON owners USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_owners_last_name_trgm ON owners USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_owners_city_trgm ON owners USING gin (lower(city) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_owners_telephone_trgm ON owners USING gin (telephone gin_trgm_ops);
+
 ALTER SEQUENCE owners_id_seq RESTART WITH 100;
 
 
@@ -62,6 +73,7 @@ CREATE TABLE IF NOT EXISTS pets (
   birth_date DATE,
   type_id INT NOT NULL,
   owner_id INT NOT NULL,
+  version INT NOT NULL DEFAULT 0,
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id),
   CONSTRAINT pk_pets PRIMARY KEY (id)
@@ -77,9 +89,12 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT NOT NULL,
   visit_date DATE,
   description VARCHAR(255),
+  version INT NOT NULL DEFAULT 0,
   FOREIGN KEY (pet_id) REFERENCES pets(id),
   CONSTRAINT pk_visits PRIMARY KEY (id)
 );
+CREATE INDEX IF NOT EXISTS idx_visits_pet_id ON visits (pet_id);
+CREATE INDEX IF NOT EXISTS idx_visits_visit_date_pet_id ON visits (visit_date, pet_id);
 
 ALTER SEQUENCE visits_id_seq RESTART WITH 100;
 
@@ -100,3 +115,15 @@ CREATE TABLE IF NOT EXISTS roles (
 
 ALTER TABLE roles ADD CONSTRAINT uni_username_role UNIQUE (role,username);
 ALTER SEQUENCE roles_id_seq RESTART WITH 100;
+
+-- source of the bit-reversed ids of petclinic.id-generation=bit-reversed, each call allocates a block of 50 ids
+CREATE SEQUENCE IF NOT EXISTS id_sequence START WITH 1 INCREMENT BY 50 MAXVALUE 2147483647;
+
+-- sources of the ids of petclinic.id-generation=pooled-sequence (JPA), each call allocates a block of 50 ids
+CREATE SEQUENCE IF NOT EXISTS vets_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS specialties_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS types_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS owners_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS pets_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS visits_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS roles_seq START WITH 100 INCREMENT BY 50;
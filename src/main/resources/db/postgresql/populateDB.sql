@@ -1,13 +1,13 @@
-INSERT INTO vets VALUES (1, 'James', 'Carter') ON CONFLICT DO NOTHING;
-INSERT INTO vets VALUES (2, 'Helen', 'Leary') ON CONFLICT DO NOTHING;
-INSERT INTO vets VALUES (3, 'Linda', 'Douglas') ON CONFLICT DO NOTHING;
-INSERT INTO vets VALUES (4, 'Rafael', 'Ortega') ON CONFLICT DO NOTHING;
-INSERT INTO vets VALUES (5, 'Henry', 'Stevens') ON CONFLICT DO NOTHING;
-INSERT INTO vets VALUES (6, 'Sharon', 'Jenkins') ON CONFLICT DO NOTHING;
+INSERT INTO vets VALUES (1, 'James', 'Carter', 0) ON CONFLICT DO NOTHING;
+INSERT INTO vets VALUES (2, 'Helen', 'Leary', 0) ON CONFLICT DO NOTHING;
+INSERT INTO vets VALUES (3, 'Linda', 'Douglas', 0) ON CONFLICT DO NOTHING;
+INSERT INTO vets VALUES (4, 'Rafael', 'Ortega', 0) ON CONFLICT DO NOTHING;
+INSERT INTO vets VALUES (5, 'Henry', 'Stevens', 0) ON CONFLICT DO NOTHING;
+INSERT INTO vets VALUES (6, 'Sharon', 'Jenkins', 0) ON CONFLICT DO NOTHING;
 
-INSERT INTO specialties VALUES (1, 'radiology') ON CONFLICT DO NOTHING;
-INSERT INTO specialties VALUES (2, 'surgery') ON CONFLICT DO NOTHING;
-INSERT INTO specialties VALUES (3, 'dentistry') ON CONFLICT DO NOTHING;
+INSERT INTO specialties VALUES (1, 'radiology', 0) ON CONFLICT DO NOTHING;
+INSERT INTO specialties VALUES (2, 'surgery', 0) ON CONFLICT DO NOTHING;
+INSERT INTO specialties VALUES (3, 'dentistry', 0) ON CONFLICT DO NOTHING;
 
 INSERT INTO vet_specialties VALUES (2, 1) ON CONFLICT DO NOTHING;
 INSERT INTO vet_specialties VALUES (3, 2) ON CONFLICT DO NOTHING;
@@ -15,42 +15,42 @@ INSERT INTO vet_specialties VALUES (3, 3) ON CONFLICT DO NOTHING;
 INSERT INTO vet_specialties VALUES (4, 2) ON CONFLICT DO NOTHING;
 INSERT INTO vet_specialties VALUES (5, 1) ON CONFLICT DO NOTHING;
 
-INSERT INTO types VALUES (1, 'cat') ON CONFLICT DO NOTHING;
-INSERT INTO types VALUES (2, 'dog') ON CONFLICT DO NOTHING;
-INSERT INTO types VALUES (3, 'lizard') ON CONFLICT DO NOTHING;
-INSERT INTO types VALUES (4, 'snake') ON CONFLICT DO NOTHING;
-INSERT INTO types VALUES (5, 'bird') ON CONFLICT DO NOTHING;
-INSERT INTO types VALUES (6, 'hamster') ON CONFLICT DO NOTHING;
-
-INSERT INTO owners VALUES (1, 'George', 'Franklin', '110 W. Liberty St.', 'Madison', '6085551023') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (2, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (3, 'Eduardo', 'Rodriquez', '2693 Commerce St.', 'McFarland', '6085558763') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (4, 'Harold', 'Davis', '563 Friendly St.', 'Windsor', '6085553198') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (5, 'Peter', 'McTavish', '2387 S. Fair Way', 'Madison', '6085552765') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (6, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (7, 'Jeff', 'Black', '1450 Oak Blvd.', 'Monona', '6085555387') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (8, 'Maria', 'Escobito', '345 Maple St.', 'Madison', '6085557683') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (9, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435') ON CONFLICT DO NOTHING;
-INSERT INTO owners VALUES (10, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487') ON CONFLICT DO NOTHING;
-
-INSERT INTO pets VALUES (1, 'Leo', '2000-09-07', 1, 1) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (2, 'Basil', '2002-08-06', 6, 2) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (3, 'Rosy', '2001-04-17', 2, 3) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (4, 'Jewel', '2000-03-07', 2, 3) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (5, 'Iggy', '2000-11-30', 3, 4) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (6, 'George', '2000-01-20', 4, 5) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (7, 'Samantha', '1995-09-04', 1, 6) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (8, 'Max', '1995-09-04', 1, 6) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (9, 'Lucky', '1999-08-06', 5, 7) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (10, 'Mulligan', '1997-02-24', 2, 8) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (11, 'Freddy', '2000-03-09', 5, 9) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (12, 'Lucky', '2000-06-24', 2, 10) ON CONFLICT DO NOTHING;
-INSERT INTO pets VALUES (13, 'Sly', '2002-06-08', 1, 10) ON CONFLICT DO NOTHING;
-
-INSERT INTO visits VALUES (1, 7, '2010-03-04', 'rabies shot') ON CONFLICT DO NOTHING;
-INSERT INTO visits VALUES (2, 8, '2011-03-04', 'rabies shot') ON CONFLICT DO NOTHING;
-INSERT INTO visits VALUES (3, 8, '2009-06-04', 'neutered') ON CONFLICT DO NOTHING;
-INSERT INTO visits VALUES (4, 7, '2008-09-04', 'spayed') ON CONFLICT DO NOTHING;
+INSERT INTO types VALUES (1, 'cat', 0) ON CONFLICT DO NOTHING;
+INSERT INTO types VALUES (2, 'dog', 0) ON CONFLICT DO NOTHING;
+INSERT INTO types VALUES (3, 'lizard', 0) ON CONFLICT DO NOTHING;
+INSERT INTO types VALUES (4, 'snake', 0) ON CONFLICT DO NOTHING;
+INSERT INTO types VALUES (5, 'bird', 0) ON CONFLICT DO NOTHING;
+INSERT INTO types VALUES (6, 'hamster', 0) ON CONFLICT DO NOTHING;
+
+INSERT INTO owners VALUES (1, 'George', 'Franklin', '110 W. Liberty St.', 'Madison', '6085551023', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (2, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (3, 'Eduardo', 'Rodriquez', '2693 Commerce St.', 'McFarland', '6085558763', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (4, 'Harold', 'Davis', '563 Friendly St.', 'Windsor', '6085553198', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (5, 'Peter', 'McTavish', '2387 S. Fair Way', 'Madison', '6085552765', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (6, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (7, 'Jeff', 'Black', '1450 Oak Blvd.', 'Monona', '6085555387', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (8, 'Maria', 'Escobito', '345 Maple St.', 'Madison', '6085557683', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (9, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435', 0) ON CONFLICT DO NOTHING;
+INSERT INTO owners VALUES (10, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487', 0) ON CONFLICT DO NOTHING;
+
+INSERT INTO pets VALUES (1, 'Leo', '2000-09-07', 1, 1, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (2, 'Basil', '2002-08-06', 6, 2, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (3, 'Rosy', '2001-04-17', 2, 3, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (4, 'Jewel', '2000-03-07', 2, 3, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (5, 'Iggy', '2000-11-30', 3, 4, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (6, 'George', '2000-01-20', 4, 5, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (7, 'Samantha', '1995-09-04', 1, 6, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (8, 'Max', '1995-09-04', 1, 6, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (9, 'Lucky', '1999-08-06', 5, 7, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (10, 'Mulligan', '1997-02-24', 2, 8, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (11, 'Freddy', '2000-03-09', 5, 9, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (12, 'Lucky', '2000-06-24', 2, 10, 0) ON CONFLICT DO NOTHING;
+INSERT INTO pets VALUES (13, 'Sly', '2002-06-08', 1, 10, 0) ON CONFLICT DO NOTHING;
+
+INSERT INTO visits VALUES (1, 7, '2010-03-04', 'rabies shot', 0) ON CONFLICT DO NOTHING;
+INSERT INTO visits VALUES (2, 8, '2011-03-04', 'rabies shot', 0) ON CONFLICT DO NOTHING;
+INSERT INTO visits VALUES (3, 8, '2009-06-04', 'neutered', 0) ON CONFLICT DO NOTHING;
+INSERT INTO visits VALUES (4, 7, '2008-09-04', 'spayed', 0) ON CONFLICT DO NOTHING;
 
 INSERT INTO users(username,password,enabled) VALUES ('admin','{noop}admin', true) ON CONFLICT DO NOTHING;
 
@@ -0,0 +1,66 @@
+package org.springframework.samples.petclinic.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for the sorted snapshot of the pets kept by {@link Owner}.
+ */
+public class OwnerTests {
+
+    private static Pet pet(String name) {
+        Pet pet = new Pet();
+        pet.setName(name);
+        return pet;
+    }
+
+    @Test
+    public void shouldSortPetsByNameIgnoringCase() {
+        Owner owner = new Owner();
+        owner.addPet(pet("leo"));
+        owner.addPet(pet("Basil"));
+        owner.addPet(pet("max"));
+
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "leo", "max");
+    }
+
+    @Test
+    public void shouldReuseSortedPetsUntilChanged() {
+        Owner owner = new Owner();
+        Pet leo = pet("Leo");
+        owner.addPet(leo);
+        owner.addPet(pet("Max"));
+
+        assertThat(owner.getPets()).isSameAs(owner.getPets());
+
+        owner.addPet(pet("Basil"));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Leo", "Max");
+
+        leo.setName("Rosy");
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Max", "Rosy");
+
+        owner.setPetsInternal(new HashSet<>(Arrays.asList(leo, pet("Abby"))));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Abby", "Rosy");
+    }
+
+    @Test
+    public void shouldSortPetsAgainAfterLoad() {
+        Owner owner = new Owner();
+        Pet leo = pet("Leo");
+        owner.addPet(leo);
+        owner.addPet(pet("Max"));
+        owner.getPets();
+
+        // the persistence provider sets the fields directly, then calls the post-load callback
+        ReflectionTestUtils.setField(leo, "name", "Rosy");
+        owner.getPetsInternal().add(pet("Basil"));
+        owner.resetSortedPets();
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Max", "Rosy");
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.springframework.samples.petclinic.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for the sorted snapshot of the specialties kept by {@link Vet}.
+ */
+public class VetTests {
+
+    private static Specialty specialty(String name) {
+        Specialty specialty = new Specialty();
+        specialty.setName(name);
+        return specialty;
+    }
+
+    @Test
+    public void shouldSortSpecialtiesByNameIgnoringCase() {
+        Vet vet = new Vet();
+        vet.addSpecialty(specialty("surgery"));
+        vet.addSpecialty(specialty("Radiology"));
+        vet.addSpecialty(specialty("dentistry"));
+
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName)
+            .containsExactly("dentistry", "Radiology", "surgery");
+    }
+
+    @Test
+    public void shouldReuseSortedSpecialtiesUntilChanged() {
+        Vet vet = new Vet();
+        Specialty surgery = specialty("surgery");
+        vet.addSpecialty(surgery);
+        vet.addSpecialty(specialty("radiology"));
+
+        assertThat(vet.getSpecialties()).isSameAs(vet.getSpecialties());
+
+        vet.addSpecialty(specialty("dentistry"));
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName)
+            .containsExactly("dentistry", "radiology", "surgery");
+
+        vet.setSpecialtiesInternal(new HashSet<>(Arrays.asList(surgery, specialty("anesthesia"))));
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("anesthesia", "surgery");
+
+        vet.clearSpecialties();
+        assertThat(vet.getSpecialties()).isEmpty();
+    }
+
+    @Test
+    public void shouldSortSpecialtiesAgainAfterLoad() {
+        Vet vet = new Vet();
+        Specialty surgery = specialty("surgery");
+        vet.addSpecialty(surgery);
+        vet.addSpecialty(specialty("radiology"));
+        vet.getSpecialties();
+
+        // the persistence provider sets the fields directly, then calls the post-load callback
+        ReflectionTestUtils.setField(surgery, "name", "anesthesia");
+        vet.getSpecialtiesInternal().add(specialty("dentistry"));
+        vet.resetSortedSpecialties();
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName)
+            .containsExactly("anesthesia", "dentistry", "radiology");
+    }
+
+}
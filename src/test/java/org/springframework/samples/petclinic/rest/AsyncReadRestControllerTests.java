@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
+import org.springframework.samples.petclinic.util.AsyncExecutorMonitor;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Test class for {@link AsyncReadRestController}, with an executor of one thread and a queue of one call so that
+ * the tests can saturate it.
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes=ApplicationTestConfig.class)
+@WebAppConfiguration
+@TestPropertySource(properties = {
+    "petclinic.async.core-pool-size=1",
+    "petclinic.async.max-pool-size=1",
+    "petclinic.async.queue-capacity=1"})
+public class AsyncReadRestControllerTests {
+
+    @Autowired
+    private AsyncReadRestController asyncReadRestController;
+
+    @Autowired
+    private AsyncExecutorMonitor asyncExecutorMonitor;
+
+    @MockBean
+    private ClinicService clinicService;
+
+    private MockMvc mockMvc;
+
+    private List<Owner> owners;
+
+    private Vet vet;
+
+    @Before
+    public void initOwners(){
+    	this.mockMvc = MockMvcBuilders.standaloneSetup(asyncReadRestController)
+    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.build();
+    	owners = new ArrayList<Owner>();
+
+    	Owner owner = new Owner();
+    	owner.setId(1);
+    	owner.setFirstName("George");
+    	owner.setLastName("Franklin");
+    	owner.setAddress("110 W. Liberty St.");
+    	owner.setCity("Madison");
+    	owner.setTelephone("6085551023");
+    	owners.add(owner);
+
+    	owner = new Owner();
+    	owner.setId(2);
+    	owner.setFirstName("Betty");
+    	owner.setLastName("Davis");
+    	owner.setAddress("638 Cardinal Ave.");
+    	owner.setCity("Sun Prairie");
+    	owner.setTelephone("6085551749");
+    	owners.add(owner);
+
+    	vet = new Vet();
+    	vet.setId(1);
+    	vet.setFirstName("James");
+    	vet.setLastName("Carter");
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnerSuccess() throws Exception {
+    	given(this.clinicService.findOwnerById(1)).willReturn(owners.get(0));
+    	MvcResult result = this.mockMvc.perform(get("/api/async/owners/1")
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$.firstName").value("George"));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnerNotFound() throws Exception {
+    	given(this.clinicService.findOwnerById(-1)).willReturn(null);
+    	MvcResult result = this.mockMvc.perform(get("/api/async/owners/-1")
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersListSuccess() throws Exception {
+    	given(this.clinicService.findOwnerByLastName("Davis")).willReturn(owners.subList(1, 2));
+    	MvcResult result = this.mockMvc.perform(get("/api/async/owners/*/lastname/Davis")
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[0].lastName").value("Davis"));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersNotFound() throws Exception {
+    	given(this.clinicService.findAllOwners()).willReturn(Collections.<Owner>emptyList());
+    	MvcResult result = this.mockMvc.perform(get("/api/async/owners")
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    public void testGetVetsRejectedWhenExecutorSaturated() throws Exception {
+    	CountDownLatch release = new CountDownLatch(1);
+    	given(this.clinicService.findVetById(1)).willAnswer(invocation -> {
+    		release.await(10, TimeUnit.SECONDS);
+    		return vet;
+    	});
+    	try {
+    		// the worker may still be finishing the call of the previous test
+    		awaitExecutor(() -> this.asyncExecutorMonitor.getActiveCount() == 0);
+    		// one call running, one waiting in the queue: the executor is saturated
+    		MvcResult running = this.mockMvc.perform(get("/api/async/vets/1")
+    			.accept(MediaType.APPLICATION_JSON_VALUE))
+    			.andExpect(request().asyncStarted())
+    			.andReturn();
+    		awaitExecutor(() -> this.asyncExecutorMonitor.getQueueSize() == 0);
+    		MvcResult queued = this.mockMvc.perform(get("/api/async/vets/1")
+    			.accept(MediaType.APPLICATION_JSON_VALUE))
+    			.andExpect(request().asyncStarted())
+    			.andReturn();
+    		this.mockMvc.perform(get("/api/async/vets")
+    			.accept(MediaType.APPLICATION_JSON_VALUE))
+    			.andExpect(status().isServiceUnavailable())
+    			.andExpect(header().string("Retry-After", "1"));
+
+    		release.countDown();
+    		this.mockMvc.perform(asyncDispatch(running))
+    			.andExpect(status().isOk())
+    			.andExpect(jsonPath("$.firstName").value("James"));
+    		this.mockMvc.perform(asyncDispatch(queued))
+    			.andExpect(status().isOk());
+    	} finally {
+    		release.countDown();
+    	}
+    }
+
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    public void testGetVetCancelledOnTimeout() throws Exception {
+    	CountDownLatch started = new CountDownLatch(1);
+    	CountDownLatch interrupted = new CountDownLatch(1);
+    	given(this.clinicService.findVetById(1)).willAnswer(invocation -> {
+    		started.countDown();
+    		try {
+    			new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+    		} catch (InterruptedException ex) {
+    			interrupted.countDown();
+    		}
+    		return vet;
+    	});
+    	awaitExecutor(() -> this.asyncExecutorMonitor.getActiveCount() == 0);
+    	MvcResult result = this.mockMvc.perform(get("/api/async/vets/1")
+    		.accept(MediaType.APPLICATION_JSON_VALUE))
+    		.andExpect(request().asyncStarted())
+    		.andReturn();
+    	assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    	MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+    	for (AsyncListener listener : asyncContext.getListeners()) {
+    		listener.onTimeout(new AsyncEvent(asyncContext));
+    	}
+
+    	assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    	this.mockMvc.perform(asyncDispatch(result))
+    		.andExpect(status().isServiceUnavailable())
+    		.andExpect(header().string("Retry-After", "1"));
+    }
+
+    private static void awaitExecutor(BooleanSupplier condition) throws InterruptedException {
+    	long deadline = System.currentTimeMillis() + 5000;
+    	while (!condition.getAsBoolean()) {
+    		if (System.currentTimeMillis() >= deadline) {
+    			fail("executor did not reach the expected state within 5 seconds");
+    		}
+    		Thread.sleep(10);
+    	}
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Test class for {@link CallMonitorRestController}
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes=ApplicationTestConfig.class)
+@WebAppConfiguration
+public class CallMonitorRestControllerTests {
+
+    @Autowired
+    private CallMonitorRestController callMonitorRestController;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void initCallMonitor(){
+    	this.mockMvc = MockMvcBuilders.standaloneSetup(callMonitorRestController)
+    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.build();
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void testGetCallStatisticsSuccess() throws Exception {
+        this.ownerRepository.findById(1);
+        this.mockMvc.perform(get("/api/callmonitor")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$[*].method").value(hasItem(endsWith("OwnerRepository.findById"))))
+            .andExpect(jsonPath("$[0].count").isNumber())
+            .andExpect(jsonPath("$[0].p50").isNumber())
+            .andExpect(jsonPath("$[0].p99").isNumber())
+            .andExpect(jsonPath("$[0].p999").isNumber());
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void testResetCallStatisticsSuccess() throws Exception {
+        this.ownerRepository.findById(1);
+        this.mockMvc.perform(delete("/api/callmonitor")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+        this.mockMvc.perform(get("/api/callmonitor")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].count").value(0));
+    }
+
+}
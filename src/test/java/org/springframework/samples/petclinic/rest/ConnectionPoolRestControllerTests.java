@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Test class for {@link ConnectionPoolRestController}
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes=ApplicationTestConfig.class)
+@WebAppConfiguration
+public class ConnectionPoolRestControllerTests {
+
+    @Autowired
+    private ConnectionPoolRestController connectionPoolRestController;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void initConnectionPool(){
+    	this.mockMvc = MockMvcBuilders.standaloneSetup(connectionPoolRestController)
+    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.build();
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void testGetConnectionPoolStatisticsSuccess() throws Exception {
+        new JdbcTemplate(this.dataSource).queryForObject("SELECT COUNT(*) FROM owners", Integer.class);
+        this.mockMvc.perform(get("/api/connectionpool")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].pool").value("petclinic"))
+            .andExpect(jsonPath("$.[0].pending").value(0))
+            .andExpect(jsonPath("$.[0].max").isNumber())
+            .andExpect(jsonPath("$.[0].acquire.count").isNumber())
+            .andExpect(jsonPath("$.[0].acquire.p99").isNumber());
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void testResetConnectionPoolStatisticsSuccess() throws Exception {
+        this.mockMvc.perform(delete("/api/connectionpool"))
+            .andExpect(status().isNoContent());
+        this.mockMvc.perform(get("/api/connectionpool")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].acquire.count").value(0))
+            .andExpect(jsonPath("$.[0].timeouts").value(0));
+    }
+
+}
@@ -16,7 +16,16 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -26,6 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -35,8 +45,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.SimpleOwnerSummary;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
 import org.springframework.samples.petclinic.service.ClinicService;
@@ -45,6 +57,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -151,6 +164,33 @@ public class OwnerRestControllerTests {
             .andExpect(jsonPath("$.firstName").value("George"));
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnerNotModified() throws Exception {
+    	given(this.clinicService.findOwnerGraphVersion(1)).willReturn(42L);
+    	given(this.clinicService.findOwnerById(1)).willReturn(owners.get(0));
+        String etag = this.mockMvc.perform(get("/api/owners/1")
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        this.mockMvc.perform(get("/api/owners/1")
+        	.header("If-None-Match", etag)
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        // only the first request loaded the owner
+        verify(this.clinicService).findOwnerById(1);
+
+        given(this.clinicService.findOwnerGraphVersion(1)).willReturn(43L);
+        this.mockMvc.perform(get("/api/owners/1")
+        	.header("If-None-Match", etag)
+        	.accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1));
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetOwnerNotFound() throws Exception {
@@ -186,6 +226,69 @@ public class OwnerRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnerSummariesSuccess() throws Exception {
+    	List<OwnerSummary> summaries = new ArrayList<OwnerSummary>();
+    	summaries.add(new SimpleOwnerSummary(6, "Jean", "Coleman", "Monona", 2L));
+    	summaries.add(new SimpleOwnerSummary(2, "Betty", "Davis", "Sun Prairie", 1L));
+    	given(this.clinicService.findAllOwnerSummaries()).willReturn(summaries);
+        this.mockMvc.perform(get("/api/owners/summaries")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(6))
+            .andExpect(jsonPath("$.[0].lastName").value("Coleman"))
+            .andExpect(jsonPath("$.[0].city").value("Monona"))
+            .andExpect(jsonPath("$.[0].petCount").value(2))
+            .andExpect(jsonPath("$.[0].pets").doesNotExist())
+            .andExpect(jsonPath("$.[1].petCount").value(1));
+        verify(this.clinicService, never()).findAllOwners();
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testSearchOwnersSuccess() throws Exception {
+    	List<OwnerSummary> summaries = new ArrayList<OwnerSummary>();
+    	summaries.add(new SimpleOwnerSummary(2, "Betty", "Davis", "Sun Prairie", 1L));
+    	given(this.clinicService.searchOwners("davis sun", 20)).willReturn(summaries);
+        this.mockMvc.perform(get("/api/owners/search?q=davis sun")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[0].city").value("Sun Prairie"))
+            .andExpect(jsonPath("$.[0].petCount").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testSearchOwnersWithLimit() throws Exception {
+    	given(this.clinicService.searchOwners("mad", 5)).willReturn(new ArrayList<OwnerSummary>());
+        this.mockMvc.perform(get("/api/owners/search?q=mad&limit=5")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+        verify(this.clinicService).searchOwners("mad", 5);
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testSearchOwnersBadRequest() throws Exception {
+        this.mockMvc.perform(get("/api/owners/search?q= ")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/owners/search?q=mad&limit=101")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/owners/search?q=mad&limit=0")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/owners/search")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        verify(this.clinicService, never()).searchOwners(anyString(), anyInt());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetAllOwnersSuccess() throws Exception {
@@ -212,6 +315,57 @@ public class OwnerRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersPageSuccess() throws Exception {
+    	given(this.clinicService.findOwnersPage(1, 2)).willReturn(owners.subList(1, 3));
+        this.mockMvc.perform(get("/api/owners/?after=1&limit=2")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[1].id").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersPageNotFound() throws Exception {
+    	given(this.clinicService.findOwnersPage(4, 100)).willReturn(new ArrayList<Owner>());
+        this.mockMvc.perform(get("/api/owners/?after=4")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersPageInvalidLimit() throws Exception {
+        this.mockMvc.perform(get("/api/owners/?limit=0")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    @SuppressWarnings("unchecked")
+    public void testStreamOwnersSuccess() throws Exception {
+        willAnswer(invocation -> {
+            owners.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).given(this.clinicService).streamAllOwners(any());
+        MvcResult result = this.mockMvc.perform(get("/api/owners/stream")
+        	.accept(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(content().string(containsString("\"firstName\":\"George\"")))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(new ObjectMapper().readTree(lines[3]).get("lastName").asText()).isEqualTo("Davis");
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testCreateOwnerSuccess() throws Exception {
@@ -279,6 +433,26 @@ public class OwnerRestControllerTests {
             .andExpect(jsonPath("$.firstName").value("George I"));
 
     }
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testUpdateOwnerPreconditionFailed() throws Exception {
+        given(this.clinicService.findOwnerById(1)).willReturn(owners.get(0));
+        given(this.clinicService.findOwnerGraphVersion(1)).willReturn(42L);
+        Owner updatedOwner = owners.get(0);
+        updatedOwner.setFirstName("George I");
+        String newOwnerAsJSON = new ObjectMapper().writeValueAsString(updatedOwner);
+        this.mockMvc.perform(put("/api/owners/1")
+            .header("If-Match", "\"41\"")
+            .content(newOwnerAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isPreconditionFailed());
+        verify(this.clinicService, never()).saveOwner(any());
+
+        this.mockMvc.perform(put("/api/owners/1")
+            .header("If-Match", "\"2a\"")
+            .content(newOwnerAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isNoContent());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testUpdateOwnerSuccessNoBodyId() throws Exception {
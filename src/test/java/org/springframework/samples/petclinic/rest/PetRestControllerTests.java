@@ -16,18 +16,31 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -46,6 +59,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
@@ -145,6 +159,48 @@ public class PetRestControllerTests {
             .andExpect(jsonPath("$.[1].name").value("Jewel"));
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetPetsFilteredSuccess() throws Exception {
+    	given(this.clinicService.findPets(eq(2), isNull(), eq(java.sql.Date.valueOf("2010-01-01")), isNull())).willReturn(pets);
+        this.mockMvc.perform(get("/api/pets/?typeId=2&bornAfter=2010/01/01")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(3))
+            .andExpect(jsonPath("$.[1].id").value(4));
+        verify(this.clinicService, never()).findAllPets();
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetPetProjectionsSuccess() throws Exception {
+    	// projections only hold the requested properties
+    	pets.get(0).setOwner(null);
+    	given(this.clinicService.findPetProjections(eq(new HashSet<String>(Arrays.asList("id", "name", "type"))),
+    		isNull(), eq(1), isNull(), isNull())).willReturn(pets);
+        this.mockMvc.perform(get("/api/pets/?ownerId=1&fields=id,name,type")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(3))
+            .andExpect(jsonPath("$.[0].name").value("Rosy"))
+            .andExpect(jsonPath("$.[0].type.name").value("dog"))
+            .andExpect(jsonPath("$.[0].owner").doesNotExist())
+            .andExpect(jsonPath("$.[0].visits").doesNotExist())
+            .andExpect(jsonPath("$.[0].birthDate").doesNotExist());
+        verify(this.clinicService, never()).findPets(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetPetProjectionsUnknownField() throws Exception {
+        this.mockMvc.perform(get("/api/pets/?fields=id,weight")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        verify(this.clinicService, never()).findAllPets();
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetAllPetsNotFound() throws Exception {
@@ -238,4 +294,26 @@ public class PetRestControllerTests {
         	.andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    @SuppressWarnings("unchecked")
+    public void testStreamPetsSuccess() throws Exception {
+        willAnswer(invocation -> {
+            pets.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).given(this.clinicService).streamAllPets(any());
+        MvcResult result = this.mockMvc.perform(get("/api/pets/stream")
+        	.accept(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(content().string(containsString("\"name\":\"Rosy\"")))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(new ObjectMapper().readTree(lines[1]).get("name").asText()).isEqualTo("Jewel");
+    }
+
 }
@@ -218,6 +218,46 @@ public class PetTypeRestControllerTests {
             .andExpect(jsonPath("$.name").value("dog I"));
     }
 
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    public void testGetAllPetTypesNotModified() throws Exception {
+    	given(this.clinicService.findAllPetTypes()).willReturn(petTypes);
+        String etag = this.mockMvc.perform(get("/api/pettypes/")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        this.mockMvc.perform(get("/api/pettypes/")
+        	.header("If-None-Match", etag)
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified());
+
+        petTypes.get(0).setVersion(1);
+        this.mockMvc.perform(get("/api/pettypes/")
+        	.header("If-None-Match", etag)
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    public void testUpdatePetTypePreconditionFailed() throws Exception {
+    	given(this.clinicService.findPetTypeById(2)).willReturn(petTypes.get(1));
+        String etag = this.mockMvc.perform(get("/api/pettypes/2")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+        // updated by another client in the meantime
+    	petTypes.get(1).setVersion(1);
+    	PetType newPetType = petTypes.get(1);
+    	newPetType.setName("dog I");
+    	String newPetTypeAsJSON = new ObjectMapper().writeValueAsString(newPetType);
+    	this.mockMvc.perform(put("/api/pettypes/2")
+    		.header("If-Match", etag)
+    		.content(newPetTypeAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+        	.andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @WithMockUser(roles="VET_ADMIN")
     public void testUpdatePetTypeError() throws Exception {
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.rest;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Test class for {@link TransactionRetryRestController}
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes=ApplicationTestConfig.class)
+@WebAppConfiguration
+public class TransactionRetryRestControllerTests {
+
+    @Autowired
+    private TransactionRetryRestController transactionRetryRestController;
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @MockBean
+    private OwnerRepository ownerRepository;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void initTransactionRetry(){
+    	this.mockMvc = MockMvcBuilders.standaloneSetup(transactionRetryRestController)
+    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.build();
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void testGetRetryStatisticsSuccess() throws Exception {
+        Owner owner = new Owner();
+        doThrow(new CannotSerializeTransactionException("conflict")).doNothing().when(this.ownerRepository).save(owner);
+        this.clinicService.saveOwner(owner);
+        this.mockMvc.perform(get("/api/transactionretries")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$[0].method").value(endsWith(".saveOwner")))
+            .andExpect(jsonPath("$[0].retries").value(1))
+            .andExpect(jsonPath("$[0].recovered").value(1))
+            .andExpect(jsonPath("$[0].exhausted").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void testResetRetryStatisticsSuccess() throws Exception {
+        this.mockMvc.perform(delete("/api/transactionretries"))
+            .andExpect(status().isNoContent());
+    }
+
+}
@@ -16,17 +16,25 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +51,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -165,6 +174,22 @@ public class VetRestControllerTests {
         		.andExpect(status().isBadRequest());
      }
 
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    public void testGetAllVetsNotModified() throws Exception {
+    	given(this.clinicService.findAllVets()).willReturn(vets);
+        String etag = this.mockMvc.perform(get("/api/vets/")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        this.mockMvc.perform(get("/api/vets/")
+        	.header("If-None-Match", etag)
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified());
+    }
+
     @Test
     @WithMockUser(roles="VET_ADMIN")
     public void testUpdateVetSuccess() throws Exception {
@@ -223,5 +248,26 @@ public class VetRestControllerTests {
         	.andExpect(status().isNotFound());
     }
 
-}
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    @SuppressWarnings("unchecked")
+    public void testStreamVetsSuccess() throws Exception {
+        willAnswer(invocation -> {
+            vets.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).given(this.clinicService).streamAllVets(any());
+        MvcResult result = this.mockMvc.perform(get("/api/vets/stream")
+        	.accept(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(content().string(containsString("\"firstName\":\"James\"")))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(new ObjectMapper().readTree(lines[2]).get("firstName").asText()).isEqualTo("Linda");
+    }
 
+}
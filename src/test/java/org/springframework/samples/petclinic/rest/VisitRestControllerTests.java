@@ -16,19 +16,30 @@
 
 package org.springframework.samples.petclinic.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -48,6 +59,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -153,6 +165,20 @@ public class VisitRestControllerTests {
         	.andExpect(jsonPath("$.[1].description").value("neutered"));
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetVisitsFilteredSuccess() throws Exception {
+    	given(this.clinicService.findVisits(eq(java.sql.Date.valueOf("2013-01-01")), eq(java.sql.Date.valueOf("2013-01-31")),
+    		isNull(), eq(10))).willReturn(visits);
+        this.mockMvc.perform(get("/api/visits/?from=2013/01/01&to=2013/01/31&ownerId=10")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+        	.andExpect(jsonPath("$.[0].id").value(2))
+        	.andExpect(jsonPath("$.[1].id").value(3));
+        verify(this.clinicService, never()).findAllVisits();
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetAllVisitsNotFound() throws Exception {
@@ -189,6 +215,47 @@ public class VisitRestControllerTests {
         		.andExpect(status().isBadRequest());
      }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testCreateVisitsSuccess() throws Exception {
+    	ObjectMapper mapper = new ObjectMapper();
+    	String newVisitsAsJSON = mapper.writeValueAsString(visits);
+    	this.mockMvc.perform(post("/api/visits/batch")
+    		.content(newVisitsAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+    		.andExpect(status().isCreated())
+    		.andExpect(content().contentType("application/json"))
+    		.andExpect(jsonPath("$.[0].description").value("rabies shot"))
+    		.andExpect(jsonPath("$.[1].description").value("neutered"));
+    	verify(this.clinicService).saveVisits(any());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testCreateVisitsFromNdjsonSuccess() throws Exception {
+    	ObjectMapper mapper = new ObjectMapper();
+    	String newVisitsAsNdjson = mapper.writeValueAsString(visits.get(0)) + "\n" + mapper.writeValueAsString(visits.get(1)) + "\n";
+    	this.mockMvc.perform(post("/api/visits/batch")
+    		.content(newVisitsAsNdjson).accept(MediaType.APPLICATION_JSON_VALUE).contentType(NdjsonStreamingResponseBody.MEDIA_TYPE))
+    		.andExpect(status().isCreated())
+    		.andExpect(jsonPath("$.length()").value(2));
+    	verify(this.clinicService).saveVisits(any());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testCreateVisitsError() throws Exception {
+    	visits.get(1).setDescription("");
+    	ObjectMapper mapper = new ObjectMapper();
+    	String newVisitsAsJSON = mapper.writeValueAsString(visits);
+    	this.mockMvc.perform(post("/api/visits/batch")
+    		.content(newVisitsAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+    		.andExpect(status().isBadRequest())
+    		.andExpect(jsonPath("$.length()").value(1))
+    		.andExpect(jsonPath("$.[0].objectName").value("visits[1]"))
+    		.andExpect(jsonPath("$.[0].fieldName").value("description"));
+    	verify(this.clinicService, never()).saveVisits(any());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testUpdateVisitSuccess() throws Exception {
@@ -246,4 +313,26 @@ public class VisitRestControllerTests {
         	.andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    @SuppressWarnings("unchecked")
+    public void testStreamVisitsSuccess() throws Exception {
+        willAnswer(invocation -> {
+            visits.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).given(this.clinicService).streamAllVisits(any());
+        MvcResult result = this.mockMvc.perform(get("/api/visits/stream")
+        	.accept(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(NdjsonStreamingResponseBody.MEDIA_TYPE))
+            .andExpect(content().string(containsString("\"description\":\"rabies shot\"")))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(new ObjectMapper().readTree(lines[1]).get("description").asText()).isEqualTo("neutered");
+    }
+
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.BitReversedIdIncrementer;
+import org.springframework.samples.petclinic.util.IdGenerationConfig;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * <p> Base class for the integration tests of {@link IdGenerationConfig}, on an in-memory HSQLDB database of their own
+ * so that the assigned ids do not move the identity columns of the database shared by the other tests. Subclasses
+ * select the repository profile. </p> <p> Reversing the bits of an id gives back the sequence value it was made from,
+ * so entities of one type saved one after the other have ids that reverse to consecutive values. </p> <p> The ids are allocated
+ * in blocks of 50, so saving a few entities calls the <code>id_sequence</code> at most once. </p>
+ */
+@TestPropertySource(properties = {
+    "petclinic.id-generation=bit-reversed",
+    "spring.datasource.url=jdbc:hsqldb:mem:petclinic-bit-reversed"})
+public abstract class AbstractBitReversedIdTests {
+
+    @Autowired
+    protected ClinicService clinicService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long nextSequenceValue() {
+        return this.jdbcTemplate.queryForObject(
+            "SELECT next_value FROM information_schema.sequences WHERE sequence_name = 'ID_SEQUENCE'", Long.class);
+    }
+
+    @Test
+    @Transactional
+    public void shouldAssignBitReversedIdsToNewEntities() {
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName("Schultz");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        this.clinicService.saveOwner(owner);
+
+        Pet pet = new Pet();
+        pet.setName("bowser");
+        pet.setBirthDate(new Date());
+        pet.setType(this.clinicService.findPetTypeById(2));
+        owner.addPet(pet);
+        this.clinicService.savePet(pet);
+
+        Visit visit = new Visit();
+        visit.setDescription("first visit");
+        pet.addVisit(visit);
+        this.clinicService.saveVisit(visit);
+
+        // Hibernate allocates a block per entity type, so only the ids of one type are consecutive values
+        List<Integer> ids = Arrays.asList(owner.getId(), pet.getId(), visit.getId());
+        assertThat(ids).doesNotHaveDuplicates();
+        for (Integer id : ids) {
+            assertThat(BitReversedIdIncrementer.reverse(id)).isBetween(1, 1000);
+        }
+        assertThat(this.clinicService.findOwnerById(owner.getId()).getLastName()).isEqualTo("Schultz");
+        assertThat(this.clinicService.findVisitById(visit.getId()).getDescription()).isEqualTo("first visit");
+    }
+
+    @Test
+    @Transactional
+    public void shouldAssignBitReversedIdsToBatchesOfVisits() {
+        Pet pet7 = this.clinicService.findPetById(7);
+        long nextSequenceValue = nextSequenceValue();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Visit visit = new Visit();
+            visit.setDescription("visit " + i);
+            pet7.addVisit(visit);
+            visits.add(visit);
+        }
+        this.clinicService.saveVisits(visits);
+        assertThat(nextSequenceValue() - nextSequenceValue).isIn(0L, 50L);
+
+        long firstSequenceValue = BitReversedIdIncrementer.reverse(visits.get(0).getId());
+        for (int i = 1; i < visits.size(); i++) {
+            assertThat(BitReversedIdIncrementer.reverse(visits.get(i).getId())).isEqualTo(firstSequenceValue + i);
+        }
+        assertThat(this.clinicService.findVisitsByPetId(7)).extracting(Visit::getId)
+            .contains(visits.get(0).getId(), visits.get(2).getId());
+    }
+
+}
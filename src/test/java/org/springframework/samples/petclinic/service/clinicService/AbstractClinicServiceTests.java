@@ -17,12 +17,19 @@ package org.springframework.samples.petclinic.service.clinicService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -33,6 +40,8 @@ import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * <p> Base class for {@link ClinicService} integration tests. </p> <p> Subclasses should specify Spring context
  * configuration using {@link ContextConfiguration @ContextConfiguration} annotation </p> <p>
@@ -110,6 +119,28 @@ public abstract class AbstractClinicServiceTests {
         assertThat(owner.getLastName()).isEqualTo(newLastName);
     }
 
+    @Test
+    @Transactional
+    public void shouldChangeOwnerGraphVersionWhenGraphChanges() {
+        Long version = this.clinicService.findOwnerGraphVersion(6);
+        assertThat(version).isNotNull();
+        assertThat(this.clinicService.findOwnerGraphVersion(6)).isEqualTo(version);
+        assertThat(this.clinicService.findOwnerGraphVersion(-1)).isNull();
+
+        Owner owner6 = this.clinicService.findOwnerById(6);
+        owner6.setCity("Madison");
+        this.clinicService.saveOwner(owner6);
+        Long updatedVersion = this.clinicService.findOwnerGraphVersion(6);
+        assertThat(updatedVersion).isNotEqualTo(version);
+
+        Pet pet7 = this.clinicService.findPetById(7);
+        Visit visit = new Visit();
+        pet7.addVisit(visit);
+        visit.setDescription("test");
+        this.clinicService.saveVisit(visit);
+        assertThat(this.clinicService.findOwnerGraphVersion(6)).isNotEqualTo(updatedVersion);
+    }
+
     @Test
     public void shouldFindPetWithCorrectId() {
         Pet pet7 = this.clinicService.findPetById(7);
@@ -192,6 +223,37 @@ public abstract class AbstractClinicServiceTests {
         assertThat(visit.getId()).isNotNull();
     }
 
+    @Test
+    @Transactional
+    public void shouldSaveVisitsInBatch() {
+        Pet pet7 = this.clinicService.findPetById(7);
+        int foundForPet = this.clinicService.findVisitsByPetId(7).size();
+        int foundAll = this.clinicService.findAllVisits().size();
+        List<Visit> visits = new ArrayList<Visit>();
+        // more than one batch of new visits, plus an update of an existing one
+        for (int i = 0; i < EntityUtils.WRITE_BATCH_SIZE + 10; i++) {
+            Visit visit = new Visit();
+            visit.setPet(pet7);
+            visit.setDescription("batch " + i);
+            visits.add(visit);
+        }
+        Visit visit1 = this.clinicService.findVisitById(1);
+        visit1.setDescription("batch update");
+        visits.add(visit1);
+
+        this.clinicService.saveVisits(visits);
+
+        Collection<Integer> ids = new HashSet<Integer>();
+        for (Visit visit : visits) {
+            assertThat(visit.getId()).isNotNull();
+            ids.add(visit.getId());
+        }
+        assertThat(ids).hasSize(visits.size());
+        assertThat(this.clinicService.findVisitsByPetId(7)).hasSize(foundForPet + EntityUtils.WRITE_BATCH_SIZE + 10);
+        assertThat(this.clinicService.findAllVisits()).hasSize(foundAll + EntityUtils.WRITE_BATCH_SIZE + 10);
+        assertThat(this.clinicService.findVisitById(1).getDescription()).isEqualTo("batch update");
+    }
+
     @Test
        public void shouldFindVisitsByPetId() throws Exception {
         Collection<Visit> visits = this.clinicService.findVisitsByPetId(7);
@@ -202,6 +264,70 @@ public abstract class AbstractClinicServiceTests {
         assertThat(visitArr[0].getPet().getId()).isEqualTo(7);
     }
 
+    @Test
+    public void shouldFindPetsByCriteria() {
+        Collection<Pet> cats = this.clinicService.findPets(1, null, null, null);
+        assertThat(cats).extracting(Pet::getId).containsExactly(1, 7, 8, 13);
+
+        Collection<Pet> colemanCats = this.clinicService.findPets(1, 6, null, null);
+        assertThat(colemanCats).extracting(Pet::getId).containsExactly(7, 8);
+        Pet samantha = colemanCats.iterator().next();
+        assertThat(samantha.getType().getName()).isEqualTo("cat");
+        assertThat(samantha.getOwner().getLastName()).isEqualTo("Coleman");
+        assertThat(samantha.getVisits()).hasSize(2);
+
+        Collection<Pet> young = this.clinicService.findPets(null, null, java.sql.Date.valueOf("2012-06-08"), null);
+        assertThat(young).extracting(Pet::getId).containsExactly(2, 7, 8);
+        Collection<Pet> old = this.clinicService.findPets(null, null, null, java.sql.Date.valueOf("2010-01-20"));
+        assertThat(old).extracting(Pet::getId).containsExactly(10);
+        Collection<Pet> between = this.clinicService.findPets(2, null,
+            java.sql.Date.valueOf("2010-01-01"), java.sql.Date.valueOf("2011-01-01"));
+        assertThat(between).extracting(Pet::getId).containsExactly(4, 12);
+    }
+
+    @Test
+    public void shouldFindPetProjections() {
+        Collection<Pet> names = this.clinicService.findPetProjections(
+            new HashSet<String>(Arrays.asList("id", "name")), 1, 6, null, null);
+        assertThat(names).extracting(Pet::getName).containsExactly("Samantha", "Max");
+        Pet samantha = names.iterator().next();
+        assertThat(samantha.getBirthDate()).isNotNull();
+        assertThat(samantha.getType()).isNull();
+        assertThat(samantha.getOwner()).isNull();
+        assertThat(samantha.getVisits()).isEmpty();
+
+        Collection<Pet> full = this.clinicService.findPetProjections(
+            new HashSet<String>(Arrays.asList("type", "owner", "visits")), 1, 6, null, null);
+        assertThat(full).extracting(Pet::getId).containsExactly(7, 8);
+        samantha = full.iterator().next();
+        assertThat(samantha.getType().getName()).isEqualTo("cat");
+        assertThat(samantha.getOwner().getLastName()).isEqualTo("Coleman");
+        assertThat(samantha.getVisits()).hasSize(2);
+        assertThat(samantha.getVisits().get(0).getPet()).isSameAs(samantha);
+
+        assertThat(this.clinicService.findPetProjections(
+            new HashSet<String>(Arrays.asList("visits")), null, null, java.sql.Date.valueOf("2030-01-01"), null)).isEmpty();
+    }
+
+    @Test
+    public void shouldFindVisitsByCriteria() {
+        Collection<Visit> day = this.clinicService.findVisits(
+            java.sql.Date.valueOf("2013-01-02"), java.sql.Date.valueOf("2013-01-02"), null, null);
+        assertThat(day).extracting(Visit::getId).containsExactly(2);
+        Visit visit = day.iterator().next();
+        assertThat(visit.getPet().getId()).isEqualTo(8);
+        assertThat(visit.getPet().getType().getName()).isEqualTo("cat");
+        assertThat(visit.getPet().getOwner().getLastName()).isEqualTo("Coleman");
+
+        assertThat(this.clinicService.findVisits(java.sql.Date.valueOf("2013-01-02"), null, null, null))
+            .extracting(Visit::getId).containsExactly(2, 3, 4);
+        assertThat(this.clinicService.findVisits(null, java.sql.Date.valueOf("2013-01-03"), 7, null))
+            .extracting(Visit::getId).containsExactly(1);
+        assertThat(this.clinicService.findVisits(null, null, null, 6))
+            .extracting(Visit::getId).containsExactly(1, 2, 3, 4);
+        assertThat(this.clinicService.findVisits(null, null, null, 1)).isEmpty();
+    }
+
     @Test
     public void shouldFindAllPets(){
         Collection<Pet> pets = this.clinicService.findAllPets();
@@ -344,6 +470,83 @@ public abstract class AbstractClinicServiceTests {
         assertThat(owner3.getFirstName()).isEqualTo("Eduardo");
     }
 
+    @Test
+    public void shouldFindOwnerSummaries() throws Exception {
+        Collection<OwnerSummary> summaries = this.clinicService.findAllOwnerSummaries();
+        assertThat(summaries).extracting(OwnerSummary::getId).containsExactly(7, 6, 2, 4, 8, 10, 1, 5, 3, 9);
+        assertThat(summaries).extracting(OwnerSummary::getPetCount).containsExactly(1L, 2L, 1L, 1L, 1L, 2L, 1L, 1L, 2L, 1L);
+        OwnerSummary coleman = summaries.stream().skip(1).findFirst().get();
+        assertThat(coleman.getFirstName()).isEqualTo("Jean");
+        assertThat(coleman.getLastName()).isEqualTo("Coleman");
+        assertThat(coleman.getCity()).isEqualTo("Monona");
+        assertThat(new ObjectMapper().writeValueAsString(coleman))
+            .contains("\"petCount\":2").contains("\"city\":\"Monona\"");
+    }
+
+    @Test
+    public void shouldSearchOwners() {
+        assertThat(this.clinicService.searchOwners("mad", 20)).extracting(OwnerSummary::getId).containsExactly(8, 1, 5, 9);
+        assertThat(this.clinicService.searchOwners("DAVIS", 20)).extracting(OwnerSummary::getId).containsExactly(2, 4);
+        assertThat(this.clinicService.searchOwners(" davis  sun ", 20)).extracting(OwnerSummary::getId).containsExactly(2);
+        assertThat(this.clinicService.searchOwners("608555", 3)).extracting(OwnerSummary::getId).containsExactly(7, 6, 2);
+        Collection<OwnerSummary> colemans = this.clinicService.searchOwners("jean monona", 20);
+        assertThat(colemans).extracting(OwnerSummary::getLastName).containsExactly("Coleman");
+        assertThat(colemans).extracting(OwnerSummary::getPetCount).containsExactly(2L);
+        // wildcards are matched literally
+        assertThat(this.clinicService.searchOwners("m_", 20)).isEmpty();
+        assertThat(this.clinicService.searchOwners("%", 20)).isEmpty();
+        assertThat(this.clinicService.searchOwners("davis xyz", 20)).isEmpty();
+        assertThat(this.clinicService.searchOwners("  ", 20)).isEmpty();
+    }
+
+    @Test
+    public void shouldFindOwnersPage(){
+        Collection<Owner> firstPage = this.clinicService.findOwnersPage(0, 4);
+        assertThat(firstPage).extracting(Owner::getId).containsExactly(1, 2, 3, 4);
+        Collection<Owner> nextPage = this.clinicService.findOwnersPage(4, 4);
+        assertThat(nextPage).extracting(Owner::getId).containsExactly(5, 6, 7, 8);
+        Owner owner6 = EntityUtils.getById(nextPage, Owner.class, 6);
+        assertThat(owner6.getPets().size()).isEqualTo(2);
+        Collection<Owner> lastPage = this.clinicService.findOwnersPage(8, 4);
+        assertThat(lastPage).extracting(Owner::getId).containsExactly(9, 10);
+        assertThat(this.clinicService.findOwnersPage(10, 4)).isEmpty();
+    }
+
+    @Test
+    public void shouldStreamAllOwners(){
+        // streamed entities are only guaranteed to be fully usable within the callback
+        Map<Integer, Integer> nrOfPetsByOwnerId = new HashMap<>();
+        this.clinicService.streamAllOwners(owner -> nrOfPetsByOwnerId.put(owner.getId(), owner.getPets().size()));
+        assertThat(nrOfPetsByOwnerId.size()).isEqualTo(this.clinicService.findAllOwners().size());
+        assertThat(nrOfPetsByOwnerId.get(6)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldStreamAllPets(){
+        Map<Integer, String> petsById = new HashMap<>();
+        this.clinicService.streamAllPets(pet -> petsById.put(pet.getId(), pet.getName() + "/" + pet.getType().getName() + "/"
+            + pet.getOwner().getFirstName() + "/" + pet.getVisits().size()));
+        assertThat(petsById.size()).isEqualTo(this.clinicService.findAllPets().size());
+        assertThat(petsById.get(7)).isEqualTo("Samantha/cat/Jean/2");
+    }
+
+    @Test
+    public void shouldStreamAllVisits(){
+        Map<Integer, String> visitsById = new HashMap<>();
+        this.clinicService.streamAllVisits(visit -> visitsById.put(visit.getId(),
+            visit.getPet().getName() + "/" + visit.getPet().getOwner().getLastName()));
+        assertThat(visitsById.size()).isEqualTo(this.clinicService.findAllVisits().size());
+        assertThat(visitsById.get(1)).isEqualTo("Samantha/Coleman");
+    }
+
+    @Test
+    public void shouldStreamAllVets(){
+        Map<Integer, String> vetsById = new HashMap<>();
+        this.clinicService.streamAllVets(vet -> vetsById.put(vet.getId(), vet.getLastName() + "/" + vet.getNrOfSpecialties()));
+        assertThat(vetsById.size()).isEqualTo(this.clinicService.findAllVets().size());
+        assertThat(vetsById.get(3)).isEqualTo("Douglas/2");
+    }
+
     @Test
     @Transactional
     public void shouldDeleteOwner(){
@@ -357,6 +560,43 @@ public abstract class AbstractClinicServiceTests {
         assertThat(owner).isNull();
     }
 
+    @Test
+    @Transactional
+    public void shouldDeleteOwnerWithPetsAndVisits() {
+        addVisits(7, 200);
+        Owner owner = this.clinicService.findOwnerById(6);
+        int foundAll = this.clinicService.findAllVisits().size();
+        int ownerVisits = 0;
+        for (Pet pet : owner.getPets()) {
+            ownerVisits += pet.getVisits().size();
+        }
+        assertThat(ownerVisits).isGreaterThan(200);
+
+        this.clinicService.deleteOwner(owner);
+
+        try {
+            owner = this.clinicService.findOwnerById(6);
+        } catch (Exception e) {
+            owner = null;
+        }
+        assertThat(owner).isNull();
+        Collection<Visit> visits = this.clinicService.findAllVisits();
+        assertThat(visits).hasSize(foundAll - ownerVisits);
+        assertThat(visits).extracting(visit -> visit.getPet().getId()).doesNotContain(7, 8);
+    }
+
+    protected void addVisits(int petId, int count) {
+        Pet pet = this.clinicService.findPetById(petId);
+        List<Visit> visits = new ArrayList<Visit>();
+        for (int i = 0; i < count; i++) {
+            Visit visit = new Visit();
+            visit.setPet(pet);
+            visit.setDescription("visit " + i);
+            visits.add(visit);
+        }
+        this.clinicService.saveVisits(visits);
+    }
+
     @Test
     public void shouldFindPetTypeById(){
     	PetType petType = this.clinicService.findPetTypeById(1);
@@ -388,6 +628,24 @@ public abstract class AbstractClinicServiceTests {
         assertThat(petTypes.size()).isEqualTo(found + 1);
     }
 
+    @Test
+    public void shouldCachePetTypesUntilPetTypeIsSaved(){
+        Collection<PetType> petTypes = this.clinicService.findAllPetTypes();
+        assertThat(this.clinicService.findAllPetTypes()).isSameAs(petTypes);
+        // saving an unchanged pet type commits no actual change but still evicts the cache
+        this.clinicService.savePetType(this.clinicService.findPetTypeById(1));
+        Collection<PetType> reloadedPetTypes = this.clinicService.findAllPetTypes();
+        assertThat(reloadedPetTypes).isNotSameAs(petTypes);
+        assertThat(reloadedPetTypes.size()).isEqualTo(petTypes.size());
+    }
+
+    @Test
+    @Transactional
+    public void shouldNotCacheWithinReadWriteTransaction(){
+        Collection<Vet> vets = this.clinicService.findAllVets();
+        assertThat(this.clinicService.findAllVets()).isNotSameAs(vets);
+    }
+
     @Test
     @Transactional
     public void shouldUpdatePetType(){
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.PooledSequenceConfig;
+import org.springframework.samples.petclinic.util.PooledSequenceGenerator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * <p> Base class for the integration tests of {@link PooledSequenceConfig}, on an in-memory HSQLDB database of their
+ * own so that the sequence generated ids do not collide with the identity columns of the database shared by the other
+ * tests. Subclasses select the repository profile. </p>
+ */
+@TestPropertySource(properties = {
+    "petclinic.id-generation=pooled-sequence",
+    "spring.datasource.url=jdbc:hsqldb:mem:petclinic-pooled-sequence"})
+@Import(StatementCounter.class)
+public abstract class AbstractPooledSequenceTests {
+
+    @Autowired
+    protected ClinicService clinicService;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    @Transactional
+    public void shouldAllocateIdsFromTheSequenceOfEachTable() {
+        Owner first = owner("Schultz");
+        Owner second = owner("Schroeder");
+        this.clinicService.saveOwner(first);
+        this.clinicService.saveOwner(second);
+
+        assertThat(first.getId()).isGreaterThanOrEqualTo(PooledSequenceGenerator.INITIAL_VALUE);
+        assertThat(second.getId()).isEqualTo(first.getId() + 1);
+        assertThat(this.clinicService.findOwnerById(second.getId()).getLastName()).isEqualTo("Schroeder");
+    }
+
+    @Test
+    @Transactional
+    public void shouldBatchInsertsOfNewVisits() {
+        Pet pet7 = this.clinicService.findPetById(7);
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Visit visit = new Visit();
+            visit.setDescription("visit " + i);
+            // not added to the visits of the pet, which would cascade their insert to the first flush
+            visit.setPet(pet7);
+            visits.add(visit);
+        }
+
+        this.statementCounter.reset();
+        this.clinicService.saveVisits(visits);
+
+        // a few sequence calls and one batched insert per flush, instead of one insert per visit
+        assertThat(this.statementCounter.getCount()).isLessThan(10);
+        Set<Integer> ids = new HashSet<>();
+        for (Visit visit : visits) {
+            assertThat(visit.getId()).isGreaterThanOrEqualTo(PooledSequenceGenerator.INITIAL_VALUE);
+            ids.add(visit.getId());
+        }
+        assertThat(ids).hasSize(visits.size());
+        assertThat(this.clinicService.findVisitsByPetId(7)).hasSize(visits.size() + 2);
+    }
+
+    private static Owner owner(String lastName) {
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName(lastName);
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        return owner;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.ReplicaRoutingConfig;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * <p> Base class for the integration tests of {@link ReplicaRoutingConfig}, with a second in-memory HSQLDB database
+ * standing in for a replica of the primary one. Subclasses select the repository profile. </p>
+ * <p> The replica holds the same data as the primary but for the first name of owner 1, so that the tests can tell
+ * which database served a read. Tests are not transactional, as a read-write test transaction would send everything to
+ * the primary. </p>
+ */
+@TestPropertySource(properties = {
+    "petclinic.datasource.replicas.urls=jdbc:hsqldb:mem:petclinic-replica",
+    "petclinic.datasource.replicas.username=sa"})
+public abstract class AbstractReplicaRoutingTests {
+
+    private static final DataSource replica =
+        new DriverManagerDataSource("jdbc:hsqldb:mem:petclinic-replica", "sa", "");
+
+    @Autowired
+    protected ClinicService clinicService;
+
+    @Autowired
+    private ReplicaRoutingDataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeClass
+    public static void populateReplica() {
+        new ResourceDatabasePopulator(
+            new ClassPathResource("db/hsqldb/initDB.sql"), new ClassPathResource("db/hsqldb/populateDB.sql"))
+            .execute(replica);
+        new JdbcTemplate(replica).update("UPDATE owners SET first_name = 'Replica' WHERE id = 1");
+    }
+
+    @Test
+    public void shouldReadFromReplicaInReadOnlyTransactions() {
+        assertThat(this.clinicService.findOwnerById(1).getFirstName()).isEqualTo("Replica");
+        assertThat(this.clinicService.findOwnerById(2).getFirstName()).isEqualTo("Betty");
+    }
+
+    @Test
+    public void shouldReadFromPrimaryInReadWriteTransactions() {
+        Owner owner = new TransactionTemplate(this.transactionManager).execute(
+            status -> this.clinicService.findOwnerById(1));
+        assertThat(owner.getFirstName()).isEqualTo("George");
+    }
+
+    @Test
+    public void shouldWriteToPrimary() {
+        PetType petType = new PetType();
+        petType.setName("replicated");
+        this.clinicService.savePetType(petType);
+        try {
+            String count = "SELECT COUNT(*) FROM types WHERE name = 'replicated'";
+            assertThat(new JdbcTemplate(this.dataSource.getPools().get(0)).queryForObject(count, Integer.class))
+                .isEqualTo(1);
+            assertThat(new JdbcTemplate(replica).queryForObject(count, Integer.class)).isEqualTo(0);
+        } finally {
+            this.clinicService.deletePetType(petType);
+        }
+    }
+
+}
@@ -15,10 +15,26 @@
  */
 package org.springframework.samples.petclinic.service.clinicService;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * <p> Integration test using the jdbc profile.
@@ -30,7 +46,95 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 @SpringBootTest
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("jdbc, hsqldb")
+@Import(StatementCounter.class)
 public class ClinicServiceJdbcTests extends AbstractClinicServiceTests {
 
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Test
+    public void shouldLoadOwnerSummariesInSingleQuery() {
+        this.statementCounter.reset();
+        assertThat(this.clinicService.findAllOwnerSummaries()).hasSize(10);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLoadOwnersPetsAndVisitsInConstantNumberOfQueries() {
+        // the pet types come from the reference data cache once it is loaded
+        this.clinicService.findAllPetTypes();
+        this.statementCounter.reset();
+        Collection<Owner> owners = this.clinicService.findAllOwners();
+        assertThat(owners.size()).isEqualTo(10);
+        // owners + one batch of pets and visits
+        assertThat(this.statementCounter.getCount()).isEqualTo(2);
+
+        this.statementCounter.reset();
+        owners = this.clinicService.findOwnerByLastName("Davis");
+        assertThat(owners.size()).isEqualTo(2);
+        assertThat(this.statementCounter.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReadPetProjectionsWithoutUnrequestedJoins() {
+        this.statementCounter.reset();
+        assertThat(this.clinicService.findPetProjections(new HashSet<String>(Arrays.asList("id", "name")), null, null, null, null))
+            .hasSize(13);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+
+        this.statementCounter.reset();
+        assertThat(this.clinicService.findPetProjections(new HashSet<String>(Arrays.asList("visits")), null, null, null, null))
+            .hasSize(13);
+        // pets + visits
+        assertThat(this.statementCounter.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    public void shouldDeleteOwnerInConstantNumberOfStatements() {
+        addVisits(7, 200);
+        Owner owner = this.clinicService.findOwnerById(6);
+        this.statementCounter.reset();
+        this.clinicService.deleteOwner(owner);
+        // visits, pets and owner
+        assertThat(this.statementCounter.getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @Transactional
+    public void shouldRejectUpdatesOfStaleVersions() {
+        Owner owner = this.clinicService.findOwnerById(1);
+        Owner staleOwner = this.clinicService.findOwnerById(1);
+        owner.setLastName(owner.getLastName() + "X");
+        this.clinicService.saveOwner(owner);
+        assertThat(owner.getVersion()).isEqualTo(staleOwner.getVersion() + 1);
+
+        staleOwner.setCity("Madison");
+        assertThatThrownBy(() -> this.clinicService.saveOwner(staleOwner))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+
+        Visit staleVisit = this.clinicService.findVisitById(1);
+        Visit visit = this.clinicService.findVisitById(1);
+        this.clinicService.saveVisit(visit);
+        assertThatThrownBy(() -> this.clinicService.saveVisits(Arrays.asList(staleVisit)))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    public void shouldLoadVetsWithSpecialtiesInSingleQuery() {
+        // the repository is called directly as vets are cached by the service
+        this.statementCounter.reset();
+        Collection<Vet> vets = this.vetRepository.findAll();
+        assertThat(vets.size()).isEqualTo(6);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+
+        this.statementCounter.reset();
+        Vet vet = this.vetRepository.findById(3);
+        assertThat(vet.getNrOfSpecialties()).isEqualTo(2);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+    }
 
 }
@@ -1,7 +1,16 @@
 package org.springframework.samples.petclinic.service.clinicService;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
@@ -17,6 +26,48 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 @SpringBootTest
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("jpa, hsqldb")
+@Import(StatementCounter.class)
 public class ClinicServiceJpaTests extends AbstractClinicServiceTests {
 
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    public void shouldLoadOwnerSummariesInSingleQuery() {
+        this.statementCounter.reset();
+        assertThat(this.clinicService.findAllOwnerSummaries()).hasSize(10);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLoadOwnerGraphInSingleQuery() {
+        this.statementCounter.reset();
+        Collection<Owner> owners = this.clinicService.findAllOwners();
+        assertThat(owners.size()).isEqualTo(10);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+        assertOwnerGraphLoaded(owners);
+
+        this.statementCounter.reset();
+        owners = this.clinicService.findOwnerByLastName("Davis");
+        assertThat(owners.size()).isEqualTo(2);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+        assertOwnerGraphLoaded(owners);
+
+        this.statementCounter.reset();
+        Owner owner = this.clinicService.findOwnerById(6);
+        assertThat(owner.getPets().size()).isEqualTo(2);
+        assertThat(this.statementCounter.getCount()).isEqualTo(1);
+    }
+
+    private void assertOwnerGraphLoaded(Collection<Owner> owners) {
+        int statements = this.statementCounter.getCount();
+        for (Owner owner : owners) {
+            for (Pet pet : owner.getPets()) {
+                assertThat(pet.getType().getName()).isNotNull();
+                assertThat(pet.getVisits()).isNotNull();
+            }
+        }
+        assertThat(this.statementCounter.getCount()).isEqualTo(statements);
+    }
+
 }
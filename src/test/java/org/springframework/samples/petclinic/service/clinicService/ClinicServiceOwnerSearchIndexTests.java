@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.util.OwnerSearchIndex;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * <p> Integration test using the jdbc profile, with the owner searches answered by the {@link OwnerSearchIndex}.
+ *
+ * @see AbstractClinicServiceTests AbstractClinicServiceTests for more details. </p>
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("jdbc, hsqldb")
+@TestPropertySource(properties = "petclinic.owner-search.trie=true")
+@Import(StatementCounter.class)
+public class ClinicServiceOwnerSearchIndexTests extends AbstractClinicServiceTests {
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private OwnerSearchIndex ownerSearchIndex;
+
+    @Test
+    public void shouldSearchOwnersWithoutQueries() {
+        this.ownerSearchIndex.invalidate();
+        assertThat(this.clinicService.searchOwners("davis", 20)).hasSize(2);
+        this.statementCounter.reset();
+        assertThat(this.clinicService.searchOwners("mad", 20)).hasSize(4);
+        assertThat(this.statementCounter.getCount()).isZero();
+    }
+
+    @Test
+    public void shouldSearchSavedOwners() {
+        assertThat(this.clinicService.searchOwners("middleton", 20)).isEmpty();
+        Owner owner = this.clinicService.findOwnerById(1);
+        owner.setCity("Middleton");
+        this.clinicService.saveOwner(owner);
+        try {
+            assertThat(this.clinicService.searchOwners("middleton", 20))
+                .extracting(OwnerSummary::getFirstName).containsExactly("George");
+        } finally {
+            owner = this.clinicService.findOwnerById(1);
+            owner.setCity("Madison");
+            this.clinicService.saveOwner(owner);
+        }
+        assertThat(this.clinicService.searchOwners("middleton", 20)).isEmpty();
+    }
+
+}
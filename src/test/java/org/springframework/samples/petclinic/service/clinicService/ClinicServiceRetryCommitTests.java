@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.mockito.stubbing.Answer;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.TransactionRetryAspect;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <p> Integration test of the retry of {@link ClinicService} transactions whose commit fails with a serialization
+ * failure, after the real repositories have written to the database and to the entities. It uses its own database,
+ * as its transactions are committed. </p>
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("jdbc, hsqldb")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:hsqldb:mem:petclinic-retry")
+public class ClinicServiceRetryCommitTests {
+
+    @SpyBean
+    private OwnerRepository ownerRepository;
+
+    @SpyBean
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private TransactionRetryAspect transactionRetry;
+
+    private final AtomicInteger commitFailures = new AtomicInteger();
+
+    @Before
+    public void failFirstCommits() {
+        this.transactionRetry.reset();
+        Answer<Void> saveThenFailCommit = invocation -> {
+            invocation.callRealMethod();
+            if (this.commitFailures.getAndDecrement() > 0) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        throw new UncategorizedSQLException("commit", null,
+                            new SQLException("could not serialize access due to concurrent update", "40001"));
+                    }
+                });
+            }
+            return null;
+        };
+        doAnswer(saveThenFailCommit).when(this.ownerRepository).save(any(Owner.class));
+        doAnswer(saveThenFailCommit).when(this.visitRepository).saveAll(anyCollection());
+    }
+
+    private static Owner owner(String lastName) {
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName(lastName);
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        return owner;
+    }
+
+    @Test
+    public void shouldInsertNewEntityAgainAfterFailedCommit() {
+        Owner owner = owner("Retried");
+        this.commitFailures.set(1);
+
+        this.clinicService.saveOwner(owner);
+
+        assertThat(this.transactionRetry.getRetryCount()).isEqualTo(1);
+        assertThat(owner.getId()).isNotNull();
+        assertThat(this.clinicService.findOwnerById(owner.getId()).getLastName()).isEqualTo("Retried");
+        assertThat(this.clinicService.findOwnerByLastName("Retried")).hasSize(1);
+    }
+
+    @Test
+    public void shouldUpdateFromOriginalVersionAfterFailedCommits() {
+        Owner owner = owner("Updated");
+        this.clinicService.saveOwner(owner);
+        Integer id = owner.getId();
+        int version = owner.getVersion();
+        owner.setCity("Madison");
+        this.commitFailures.set(2);
+
+        this.clinicService.saveOwner(owner);
+
+        assertThat(this.transactionRetry.getRetryCount()).isEqualTo(2);
+        assertThat(owner.getId()).isEqualTo(id);
+        assertThat(owner.getVersion()).isEqualTo(version + 1);
+        Owner saved = this.clinicService.findOwnerById(id);
+        assertThat(saved.getCity()).isEqualTo("Madison");
+        assertThat(saved.getVersion()).isEqualTo(owner.getVersion());
+    }
+
+    @Test
+    public void shouldInsertNewEntitiesOfCollectionAgainAfterFailedCommit() {
+        Pet pet = this.clinicService.findPetById(7);
+        int visitCount = this.clinicService.findVisitsByPetId(7).size();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Visit visit = new Visit();
+            visit.setDescription("retried visit " + i);
+            pet.addVisit(visit);
+            visits.add(visit);
+        }
+        this.commitFailures.set(1);
+
+        this.clinicService.saveVisits(visits);
+
+        assertThat(this.transactionRetry.getRetryCount()).isEqualTo(1);
+        assertThat(visits).allMatch(visit -> !visit.isNew());
+        assertThat(this.clinicService.findVisitsByPetId(7)).hasSize(visitCount + 3)
+            .extracting(Visit::getId).contains(visits.get(0).getId(), visits.get(2).getId());
+    }
+
+}
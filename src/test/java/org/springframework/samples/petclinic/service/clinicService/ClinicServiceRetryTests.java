@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.TransactionRetryAspect;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * <p> Integration test of the retry of {@link ClinicService} transactions after serialization failures, injected by
+ * stand-in repositories. </p>
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("jdbc, hsqldb")
+public class ClinicServiceRetryTests {
+
+    @MockBean
+    private OwnerRepository ownerRepository;
+
+    @MockBean
+    private PetRepository petRepository;
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private TransactionRetryAspect transactionRetry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static CannotSerializeTransactionException serializationFailure() {
+        return new CannotSerializeTransactionException("could not serialize access due to concurrent update");
+    }
+
+    private TransactionRetryAspect.RetryStatistics statistics(String method) {
+        return this.transactionRetry.getStatistics().entrySet().stream()
+            .filter(entry -> entry.getKey().endsWith("." + method))
+            .findFirst().get().getValue();
+    }
+
+    @Before
+    public void resetStatistics() {
+        this.transactionRetry.reset();
+    }
+
+    @Test
+    public void shouldRetrySerializationFailuresInNewTransactions() {
+        Owner owner = new Owner();
+        doThrow(serializationFailure())
+            .doThrow(new UncategorizedSQLException("save", "UPDATE owners", new SQLException("conflict", "40001")))
+            .doAnswer(invocation -> {
+                assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+                return null;
+            })
+            .when(this.ownerRepository).save(owner);
+
+        this.clinicService.saveOwner(owner);
+
+        verify(this.ownerRepository, times(3)).save(owner);
+        assertThat(statistics("saveOwner").getRetries()).isEqualTo(2);
+        assertThat(statistics("saveOwner").getRecovered()).isEqualTo(1);
+        assertThat(statistics("saveOwner").getExhausted()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() {
+        Pet pet = new Pet();
+        doThrow(serializationFailure()).when(this.petRepository).delete(pet);
+
+        assertThatThrownBy(() -> this.clinicService.deletePet(pet)).isInstanceOf(CannotSerializeTransactionException.class);
+
+        verify(this.petRepository, times(5)).delete(pet);
+        assertThat(statistics("deletePet").getRetries()).isEqualTo(4);
+        assertThat(statistics("deletePet").getExhausted()).isEqualTo(1);
+        assertThat(this.transactionRetry.getExhaustedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotRetryOtherFailures() {
+        Owner owner = new Owner();
+        doThrow(new DataIntegrityViolationException("duplicate")).when(this.ownerRepository).save(owner);
+
+        assertThatThrownBy(() -> this.clinicService.saveOwner(owner)).isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(this.ownerRepository, times(1)).save(owner);
+        assertThat(this.transactionRetry.getRetryCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotRetryWithinCallerTransaction() {
+        Owner owner = new Owner();
+        doThrow(serializationFailure()).when(this.ownerRepository).save(owner);
+
+        assertThatThrownBy(() -> new TransactionTemplate(this.transactionManager).executeWithoutResult(
+            status -> this.clinicService.saveOwner(owner))).isInstanceOf(CannotSerializeTransactionException.class);
+
+        verify(this.ownerRepository, times(1)).save(owner);
+        assertThat(this.transactionRetry.getRetryCount()).isEqualTo(0);
+    }
+
+}
@@ -1,9 +1,18 @@
 package org.springframework.samples.petclinic.service.clinicService;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * <p> Integration test using the 'Spring Data' profile.
@@ -17,4 +26,20 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 @ActiveProfiles("spring-data-jpa, hsqldb")
 public class ClinicServiceSpringDataJpaTests extends AbstractClinicServiceTests {
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @Transactional
+    public void shouldDeletePetsAndOwnersWithCachedQueryPlans() {
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.clinicService.deletePet(this.clinicService.findPetById(1));
+        this.clinicService.deleteOwner(this.clinicService.findOwnerById(1));
+        long missCount = statistics.getQueryPlanCacheMissCount();
+
+        this.clinicService.deletePet(this.clinicService.findPetById(3));
+        this.clinicService.deleteOwner(this.clinicService.findOwnerById(2));
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(missCount);
+    }
+
 }
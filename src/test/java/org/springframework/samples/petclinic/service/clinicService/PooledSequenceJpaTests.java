@@ -0,0 +1,18 @@
+package org.springframework.samples.petclinic.service.clinicService;
+
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * <p> Integration test of the pooled sequence ids using the jpa profile.
+ *
+ * @see AbstractPooledSequenceTests AbstractPooledSequenceTests for more details. </p>
+ */
+@SpringBootTest
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("jpa, hsqldb")
+public class PooledSequenceJpaTests extends AbstractPooledSequenceTests {
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.support.incrementer.AbstractDataFieldMaxValueIncrementer;
+
+/**
+ * Test class for {@link BitReversedIdIncrementer}
+ */
+public class BitReversedIdIncrementerTests {
+
+    @Test
+    public void shouldSpreadConsecutiveValuesOverPositiveInts() {
+        assertThat(BitReversedIdIncrementer.reverse(1)).isEqualTo(1 << 30);
+        assertThat(BitReversedIdIncrementer.reverse(2)).isEqualTo(1 << 29);
+        assertThat(BitReversedIdIncrementer.reverse(3)).isEqualTo((1 << 30) | (1 << 29));
+        assertThat(BitReversedIdIncrementer.reverse(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldGiveDistinctIdsThatReverseBackToTheirValues() {
+        Set<Integer> ids = new HashSet<>();
+        for (long value = 1; value <= 100000; value++) {
+            int id = BitReversedIdIncrementer.reverse(value);
+            assertThat(id).isPositive();
+            assertThat(BitReversedIdIncrementer.reverse(id)).isEqualTo((int) value);
+            ids.add(id);
+        }
+        assertThat(ids).hasSize(100000);
+    }
+
+    @Test
+    public void shouldRejectValuesOutOfTheIdRange() {
+        assertThatThrownBy(() -> BitReversedIdIncrementer.reverse(0)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> BitReversedIdIncrementer.reverse(Integer.MAX_VALUE + 1L))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void shouldReverseTheValuesOfTheSequence() {
+        BitReversedIdIncrementer incrementer = new BitReversedIdIncrementer(new AbstractDataFieldMaxValueIncrementer() {
+            private long value;
+
+            @Override
+            protected long getNextKey() {
+                return ++this.value;
+            }
+        });
+        assertThat(incrementer.nextIntValue()).isEqualTo(1 << 30);
+        assertThat(incrementer.nextLongValue()).isEqualTo(1L << 29);
+        assertThat(incrementer.nextStringValue()).isEqualTo(String.valueOf((1 << 30) | (1 << 29)));
+    }
+
+    @Test
+    public void shouldAllocateBlocksOfValuesFromTheSequence() {
+        AtomicInteger calls = new AtomicInteger();
+        BitReversedIdIncrementer incrementer = new BitReversedIdIncrementer(new AbstractDataFieldMaxValueIncrementer() {
+            private long value = 1;
+
+            @Override
+            protected long getNextKey() {
+                calls.incrementAndGet();
+                long next = this.value;
+                this.value += 3;
+                return next;
+            }
+        }, 3);
+        for (int value = 1; value <= 7; value++) {
+            assertThat(BitReversedIdIncrementer.reverse(incrementer.nextIntValue())).isEqualTo(value);
+        }
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.Owner;
+
+/**
+ * Test class for {@link EntityIndex}
+ */
+public class EntityIndexTests {
+
+    @Test
+    public void shouldFindEveryIndexedEntityAcrossResizes() {
+        List<Owner> owners = new ArrayList<>();
+        for (int id = -1000; id <= 100000; id += 7) {
+            owners.add(owner(id));
+        }
+        EntityIndex<Owner> index = new EntityIndex<Owner>(Owner.class, 0);
+        for (Owner owner : owners) {
+            assertThat(index.put(owner)).isNull();
+        }
+        assertThat(index.size()).isEqualTo(owners.size());
+        for (Owner owner : owners) {
+            assertThat(index.getById(owner.getId())).isSameAs(owner);
+        }
+        assertThat(index.get(2)).isNull();
+        assertThat(index.get(0)).isNull();
+    }
+
+    @Test
+    public void shouldReplaceEntityWithSameId() {
+        Owner first = owner(42);
+        Owner second = owner(42);
+        EntityIndex<Owner> index = EntityUtils.indexById(Collections.singletonList(first), Owner.class);
+        assertThat(index.put(second)).isSameAs(first);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.getById(42)).isSameAs(second);
+    }
+
+    @Test
+    public void shouldFailLikeGetByIdForUnknownIds() {
+        EntityIndex<Owner> index = EntityUtils.indexById(Collections.singletonList(owner(1)), Owner.class);
+        assertThatThrownBy(() -> index.getById(2)).isInstanceOf(ObjectRetrievalFailureException.class);
+        assertThatThrownBy(() -> index.put(new Owner())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Owner owner(int id) {
+        Owner owner = new Owner();
+        owner.setId(id);
+        return owner;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link LatencyHistogram}
+ */
+public class LatencyHistogramTests {
+
+    @Test
+    public void shouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertThat(histogram.getCount()).isEqualTo(100000);
+        assertThat(histogram.getMax()).isEqualTo(100000000L);
+        assertThat(histogram.getValueAtPercentile(50)).isCloseTo(50000000L, within(50000000L / 32));
+        assertThat(histogram.getValueAtPercentile(99)).isCloseTo(99000000L, within(99000000L / 32));
+        assertThat(histogram.getValueAtPercentile(99.9)).isCloseTo(99900000L, within(99900000L / 32));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100000000L);
+    }
+
+    @Test
+    public void shouldSummarizeInReportingOrder() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(30);
+        assertThat(histogram.getSummary()).containsExactly(entry("count", 2L), entry("mean", 20L), entry("p50", 10L),
+            entry("p99", 30L), entry("p999", 30L), entry("max", 30L));
+    }
+
+    @Test
+    public void shouldMapEveryValueToABucketContainingIt() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(LatencyHistogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestEquivalentValue(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    public void shouldResetAllCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getValueAtPercentile(99)).isZero();
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+
+/**
+ * Test class for {@link OwnerSearch} and {@link OwnerSearchIndex}
+ */
+public class OwnerSearchIndexTests {
+
+    private OwnerRepository ownerRepository;
+
+    private OwnerSearchIndex index;
+
+    @Before
+    public void init() {
+        Owner davis = owner(2, "Betty", "Davis", "Sun Prairie", "6085551749");
+        davis.addPet(new Pet());
+        List<Owner> owners = Arrays.asList(
+            owner(1, "George", "Franklin", "Madison", "6085551023"),
+            davis,
+            owner(4, "Harold", "Davis", "Windsor", "6085553198"),
+            owner(8, "Maria", "Escobito", "Madison", "6085557683"));
+        this.ownerRepository = mock(OwnerRepository.class);
+        given(this.ownerRepository.findAll()).willReturn(owners);
+        this.index = new OwnerSearchIndex(this.ownerRepository);
+    }
+
+    @Test
+    public void shouldSplitQueryIntoDistinctLowerCaseTerms() {
+        assertThat(OwnerSearch.terms("  Davis sun\tDAVIS ")).containsExactly("davis", "sun");
+        assertThat(OwnerSearch.terms("a b c d e f g")).hasSize(OwnerSearch.MAX_TERMS);
+        assertThat(OwnerSearch.terms(" ")).isEmpty();
+        assertThat(OwnerSearch.terms(null)).isEmpty();
+    }
+
+    @Test
+    public void shouldEscapeLikeWildcards() {
+        assertThat(OwnerSearch.likePattern("davis")).isEqualTo("davis%");
+        assertThat(OwnerSearch.likePattern("5%_!")).isEqualTo("5!%!_!!%");
+    }
+
+    @Test
+    public void shouldMatchEveryTermAsPrefixOfAnyField() {
+        assertThat(search("davis")).extracting(OwnerSummary::getId).containsExactly(2, 4);
+        assertThat(search("davis", "sun")).extracting(OwnerSummary::getId).containsExactly(2);
+        assertThat(search("madison")).extracting(OwnerSummary::getId).containsExactly(8, 1);
+        assertThat(search("6085551")).extracting(OwnerSummary::getId).containsExactly(2, 1);
+        assertThat(search("davis", "madison")).isEmpty();
+        assertThat(search("prairie")).isEmpty();
+        assertThat(search("davis")).extracting(OwnerSummary::getPetCount).containsExactly(1L, 0L);
+    }
+
+    @Test
+    public void shouldLimitResults() {
+        assertThat(this.index.search(Collections.singletonList("6"), 3)).extracting(OwnerSummary::getId)
+            .containsExactly(2, 4, 8);
+    }
+
+    @Test
+    public void shouldBuildOnceUntilInvalidated() {
+        search("davis");
+        search("madison");
+        verify(this.ownerRepository, times(1)).findAll();
+        this.index.invalidate();
+        search("davis");
+        verify(this.ownerRepository, times(2)).findAll();
+    }
+
+    private List<OwnerSummary> search(String... terms) {
+        return (List<OwnerSummary>) this.index.search(Arrays.asList(terms), 20);
+    }
+
+    private static Owner owner(int id, String firstName, String lastName, String city, String telephone) {
+        Owner owner = new Owner();
+        owner.setId(id);
+        owner.setFirstName(firstName);
+        owner.setLastName(lastName);
+        owner.setCity(city);
+        owner.setTelephone(telephone);
+        return owner;
+    }
+
+}
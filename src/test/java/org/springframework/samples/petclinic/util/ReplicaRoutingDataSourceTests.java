@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Test class for {@link ReplicaRoutingDataSource}, with in-memory HSQLDB databases as primary and replicas.
+ */
+public class ReplicaRoutingDataSourceTests {
+
+    private final HikariDataSource primary = dataSource("routing-primary");
+
+    private final HikariDataSource replicaA = dataSource("routing-replica-a");
+
+    private final HikariDataSource replicaB = dataSource("routing-replica-b");
+
+    private static HikariDataSource dataSource(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:hsqldb:mem:" + name);
+        dataSource.setUsername("sa");
+        return dataSource;
+    }
+
+    private static String database(Connection connection) throws SQLException {
+        return connection.getMetaData().getURL();
+    }
+
+    @After
+    public void closeDataSources() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        this.primary.close();
+        this.replicaA.close();
+        this.replicaB.close();
+    }
+
+    private ReplicaRoutingDataSource routingDataSource(ReplicaRoutingDataSource.Strategy strategy) {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+            this.primary, Arrays.asList(this.replicaA, this.replicaB), strategy);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    @Test
+    public void shouldUsePrimaryOutsideReadOnlyTransactions() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routingDataSource(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(database(connection)).isEqualTo("jdbc:hsqldb:mem:routing-primary");
+            }
+        }
+    }
+
+    @Test
+    public void shouldUseReplicasInTurn() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routingDataSource(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection();
+             Connection third = dataSource.getConnection()) {
+            assertThat(database(first)).isEqualTo("jdbc:hsqldb:mem:routing-replica-a");
+            assertThat(database(second)).isEqualTo("jdbc:hsqldb:mem:routing-replica-b");
+            assertThat(database(third)).isEqualTo("jdbc:hsqldb:mem:routing-replica-a");
+        }
+    }
+
+    @Test
+    public void shouldChooseDatabaseAtFirstStatement() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routingDataSource(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+        try (Connection connection = dataSource.getConnection()) {
+            // as a transaction manager does: the transaction is marked read-only after its connection is taken
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            assertThat(database(connection)).isEqualTo("jdbc:hsqldb:mem:routing-replica-a");
+        }
+    }
+
+    @Test
+    public void shouldUseLeastLoadedReplica() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routingDataSource(ReplicaRoutingDataSource.Strategy.LEAST_LOADED);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection held = this.replicaA.getConnection(); Connection other = this.replicaA.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = dataSource.getConnection()) {
+                    assertThat(database(connection)).isEqualTo("jdbc:hsqldb:mem:routing-replica-b");
+                }
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(database(connection)).startsWith("jdbc:hsqldb:mem:routing-replica-");
+        }
+    }
+
+}